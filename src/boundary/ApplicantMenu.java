@@ -10,7 +10,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 
 public class ApplicantMenu {
-    protected Scanner scanner = new Scanner(System.in);
+    protected Scanner scanner = SessionContext.current().getScanner();
     protected Applicant applicant;
     protected IProjectManager projectManager;
     protected IApplicationManager applicationManager;
@@ -92,35 +92,14 @@ public class ApplicantMenu {
         }
 
  
+        // The projects are already visible, open and filtered by eligibility
         List<BTOProject> eligibleProjects = new ArrayList<>();
         for (BTOProject project : projects) {
- 
-            if (!project.isVisible()) {
-                continue;
-            }
-            
             // Skip the project that the applicant has an unsuccessful or withdrawn application for
             if (currentProjectName != null && project.getProjectName().equals(currentProjectName)) {
                 continue;
             }
 
- 
-            if (applicant.getMaritalStatus() == MaritalStatus.SINGLE) {
- 
-                if (applicant.getAge() < 35) {
-                    continue;
-                }
- 
-                if (!project.getFlatUnits().containsKey(FlatType.TWO_ROOM)) {
-                    continue;
-                }
-            } else {
-              
-                if (applicant.getAge() < 21) {
-                    continue;
-                }
-            }
-
             eligibleProjects.add(project);
         }
 
@@ -164,17 +143,19 @@ public class ApplicantMenu {
                 displayProjects.sort(Comparator.comparing(BTOProject::getNeighborhood));
                 break;
             case 2: 
-                displayProjects.sort((p1, p2) -> {
-                    int total1 = p1.getRemainingUnits().values().stream().mapToInt(Integer::intValue).sum();
-                    int total2 = p2.getRemainingUnits().values().stream().mapToInt(Integer::intValue).sum();
-                    return Integer.compare(total2, total1); 
-                });
+                displayProjects.sort((p1, p2) -> Integer.compare(p2.getTotalRemainingUnits(), p1.getTotalRemainingUnits()));
                 break;
             case 3: 
                 System.out.print("Enter neighborhood to filter (leave empty to cancel): ");
                 String filterNeighborhood = scanner.nextLine().trim();
                 if (!filterNeighborhood.isEmpty()) {
-                    displayProjects.removeIf(p -> !p.getNeighborhood().equalsIgnoreCase(filterNeighborhood));
+                    // Match by word prefix first ("Jurong W"), then allow small typos ("Pungol")
+                    Set<BTOProject> matches = projectManager.findProjectsByNeighborhood(filterNeighborhood, 0);
+                    if (Collections.disjoint(displayProjects, matches)) {
+                        matches = projectManager.findProjectsByNeighborhood(filterNeighborhood, 2);
+                        System.out.println("No exact matches; showing close matches for \"" + filterNeighborhood + "\".");
+                    }
+                    displayProjects.retainAll(matches);
                 }
                 break;
             case 4: 
@@ -191,7 +172,7 @@ public class ApplicantMenu {
         System.out.println("\nAvailable Projects:");
         for (int i = 0; i < displayProjects.size(); i++) {
             BTOProject project = displayProjects.get(i);
-            int totalUnits = project.getRemainingUnits().values().stream().mapToInt(Integer::intValue).sum();
+            int totalUnits = project.getTotalRemainingUnits();
             System.out.printf("%d. %s (%s) - Available Units: %d%n", 
                 i + 1, 
                 project.getProjectName(), 
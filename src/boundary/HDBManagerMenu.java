@@ -13,13 +13,14 @@ import java.util.InputMismatchException;
 import java.io.*;
 
 public class HDBManagerMenu {
-    private Scanner scanner = new Scanner(System.in);
+    private Scanner scanner = SessionContext.current().getScanner();
     private HDBManager manager;
     private IProjectManager projectManager;
     private IApplicationManager applicationManager;
     private IEnquiryManager enquiryManager;
     private IUserManager userManager;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int SEARCH_RESULT_LIMIT = 20;
 
     public HDBManagerMenu(HDBManager manager) {
         this.manager = manager;
@@ -247,7 +248,7 @@ public class HDBManagerMenu {
     }
 
     private void viewMyProjects() {
-        List<BTOProject> projects = manager.getManagedProjects();
+        List<BTOProject> projects = new ArrayList<>(manager.getManagedProjects()); // Copied, as it may be sorted below
         if (projects.isEmpty()) {
             System.out.println("You have no projects.");
             return;
@@ -374,18 +375,15 @@ public class HDBManagerMenu {
                 
                 switch (choice) {
                     case 1:
-                        boolean newVisibility = !project.isVisible();
-                        project.setVisible(newVisibility);
-                        
-                        // If visibility is being set to hidden, disable auto-publish to prevent contradictions
-                        if (!newVisibility && project.isAutoPublish()) {
-                            project.setAutoPublish(false);
+                        // Hiding the project also disables auto-publish to prevent contradictions
+                        boolean wasAutoPublish = project.isAutoPublish();
+                        boolean newVisibility = projectManager.toggleVisibility(project);
+                        if (!newVisibility && wasAutoPublish) {
                             System.out.println("Project visibility set to Hidden. Auto-publish has been disabled to prevent visibility conflicts.");
                         } else {
                             System.out.println("Project visibility toggled successfully!");
                         }
                         
-                        projectManager.saveProjects();
                         System.out.println("\nUpdated project details:");
                         viewProjectDetails(project, isOwnedProject);  // Reprint project details after toggle
                         return;
@@ -494,8 +492,7 @@ public class HDBManagerMenu {
                 case 1:
                     System.out.print("Enter new neighborhood: ");
                     String neighborhood = scanner.nextLine();
-                    project.setNeighborhood(neighborhood);
-                    projectManager.saveProjects();
+                    projectManager.editNeighborhood(project, neighborhood);
                     System.out.println("Neighborhood updated successfully!");
                     System.out.println("\nUpdated project details:");
                     viewProjectDetails(project, true);  // Reprint project details after edit
@@ -508,7 +505,7 @@ public class HDBManagerMenu {
                 case 3:
                     // Toggle auto-publish setting
                     project.setAutoPublish(!project.isAutoPublish());
-                    projectManager.saveProjects();
+                    projectManager.saveProject(project);
                     System.out.println("Auto-publish setting toggled to: " + 
                                       (project.isAutoPublish() ? "ENABLED" : "DISABLED"));
                     System.out.println("\nUpdated project details:");
@@ -531,7 +528,7 @@ public class HDBManagerMenu {
         LocalDate now = LocalDate.now();
         
         // Check if project has applications - if yes, only allow editing close date
-        boolean hasApplications = !project.getApplications().isEmpty();
+        boolean hasApplications = project.applicationCount() > 0;
         
         if (hasApplications) {
             System.out.println("Note: This project has existing applications.");
@@ -556,8 +553,7 @@ public class HDBManagerMenu {
                 }
             }
             
-            project.setApplicationCloseDate(closeDate);
-            projectManager.saveProjects();
+            projectManager.editProjectDates(project, project.getApplicationOpenDate(), closeDate);
             System.out.println("Application closing date updated successfully!");
             System.out.println("\nUpdated project details:");
             viewProjectDetails(project, true);  // Reprint project details after date changes
@@ -593,9 +589,7 @@ public class HDBManagerMenu {
             }
         }
         
-        project.setApplicationOpenDate(openDate);
-        project.setApplicationCloseDate(closeDate);
-        projectManager.saveProjects();
+        projectManager.editProjectDates(project, openDate, closeDate);
         System.out.println("Application dates updated successfully!");
         System.out.println("\nUpdated project details:");
         viewProjectDetails(project, true);  // Reprint project details after date changes
@@ -865,12 +859,17 @@ public class HDBManagerMenu {
                         }
                     }
                     
+                    // The status changes on approval, so note the booked unit first
+                    FlatType returnedFlatType = selectedApp.getStatus() == ApplicationStatus.BOOKED ?
+                        selectedApp.getBookedFlatType() : null;
                     if (applicationManager.approveWithdrawal(selectedApp)) {
                         System.out.println("Withdrawal request approved successfully!");
                         System.out.println("The applicant can now apply for another project.");
                         
-                        // If it was a BOOKED application, show updated flat units
-                        if (selectedApp.getStatus() == ApplicationStatus.BOOKED) {
+                        // If it was a BOOKED application, show the returned unit and updated flat units
+                        if (returnedFlatType != null) {
+                            System.out.println("\nReturned a " + returnedFlatType.getDisplayName() + " unit to the pool (" +
+                                project.getUnbookedUnits(returnedFlatType) + " unbooked now).");
                             System.out.println("\nUpdated Flat Units:");
                             String[] unitHeaders = {"Flat Type", "Available Units"};
                             String[][] unitData = new String[project.getRemainingUnits().size()][2];
@@ -922,7 +921,8 @@ public class HDBManagerMenu {
 
         System.out.println("\nSelect Project:");
         for (int i = 0; i < projects.size(); i++) {
-            System.out.printf("%d. %s%n", i + 1, projects.get(i).getProjectName());
+            int pending = enquiryManager.getUnrepliedEnquiriesForProject(projects.get(i).getProjectName()).size();
+            System.out.printf("%d. %s (%d pending)%n", i + 1, projects.get(i).getProjectName(), pending);
         }
         System.out.println("0. Go Back");
 
@@ -948,6 +948,16 @@ public class HDBManagerMenu {
                 return;
             }
 
+            System.out.print("Search enquiries (leave empty to list all): ");
+            String query = scanner.nextLine().trim();
+            if (!query.isEmpty()) {
+                enquiries = enquiryManager.searchEnquiries(selected.getProjectName(), query, SEARCH_RESULT_LIMIT);
+                if (enquiries.isEmpty()) {
+                    System.out.println("No enquiries match \"" + query + "\".");
+                    return;
+                }
+            }
+
             System.out.println("\nEnquiries:");
             String[] headers = {"No.", "From", "Content", "Reply Status"};
             String[][] data = new String[enquiries.size()][4];
@@ -985,7 +995,7 @@ public class HDBManagerMenu {
             
             // Since we're now only showing projects the manager owns, this check is redundant
             // but keeping it for safety
-            if (manager.getManagedProjects().contains(selected)) {
+            if (manager.managesProject(selected)) {
                 System.out.print("\nEnter enquiry number to reply (0 to go back): ");
                 try {
                     int enquiryNum = scanner.nextInt();
@@ -1035,7 +1045,7 @@ public class HDBManagerMenu {
             projectData[i][0] = String.valueOf(i + 1);
             projectData[i][1] = project.getProjectName();
             projectData[i][2] = project.getNeighborhood();
-            projectData[i][3] = String.valueOf(project.getOfficers().size());
+            projectData[i][3] = String.valueOf(project.officerCount());
             projectData[i][4] = String.valueOf(project.getMaxOfficerSlots());
         }
         
@@ -1102,12 +1112,10 @@ public class HDBManagerMenu {
                     HDBOfficer officer = pendingOfficers.get(officerNum - 1);
                     if (choice == 1) {
                         officer.setRegistrationApproved(true);
-                        projectManager.saveProjects();
+                        projectManager.saveProject(selected);
                         System.out.println("Officer registration approved!");
                     } else if (choice == 2) {
-                        selected.getOfficers().remove(officer);
-                        officer.setAssignedProject(null);
-                        projectManager.saveProjects();
+                        projectManager.removeOfficer(selected, officer);
                         System.out.println("Officer registration rejected!");
                     } else {
                         System.out.println("Invalid option selected.");
@@ -1155,7 +1163,6 @@ public class HDBManagerMenu {
             }
 
             BTOProject selected = projects.get(projectNum - 1);
-            List<BTOApplication> applications = applicationManager.getApplicationsForProject(selected.getProjectName());
 
             System.out.println("\nSelect Report Type:");
             System.out.println("1. All Applications");
@@ -1172,19 +1179,19 @@ public class HDBManagerMenu {
                 System.out.println("\nReport:");
                 switch (choice) {
                     case 1:
-                        generateAllApplicationsReport(applications, selected.getProjectName());
+                        generateAllApplicationsReport(selected.getProjectName());
                         break;
                     case 2:
-                        generateSuccessfulApplicationsReport(applications, selected.getProjectName());
+                        generateSuccessfulApplicationsReport(selected.getProjectName());
                         break;
                     case 3:
-                        generateBookedFlatsReport(applications, selected.getProjectName());
+                        generateBookedFlatsReport(selected.getProjectName());
                         break;
                     case 4:
-                        generateApplicationsByFlatTypeReport(applications, selected.getProjectName());
+                        generateApplicationsByFlatTypeReport(selected.getProjectName());
                         break;
                     case 5:
-                        generateApplicationsByMaritalStatusReport(applications, selected.getProjectName());
+                        generateApplicationsByMaritalStatusReport(selected.getProjectName());
                         break;
                     default:
                         System.out.println("Invalid option.");
@@ -1224,19 +1231,21 @@ public class HDBManagerMenu {
     
     private void saveReportToFile(String filename) {
         try {
-            // Create a new PrintStream that will capture System.out
-            PrintStream originalOut = System.out;
+            // Create a new PrintStream that will capture this session's output
             ByteArrayOutputStream reportContent = new ByteArrayOutputStream();
             PrintStream reportOut = new PrintStream(reportContent);
             
-            // Temporarily redirect System.out to our buffer
-            System.setOut(reportOut);
+            // Temporarily redirect the session's output to our buffer
+            SessionContext session = SessionContext.current();
+            PrintStream originalOut = session.setOut(reportOut);
             
             // Re-run the last report to capture its output
-            executeLastReport();
-            
-            // Restore the original System.out
-            System.setOut(originalOut);
+            try {
+                executeLastReport();
+            } finally {
+                // Restore the original output
+                session.setOut(originalOut);
+            }
             reportOut.close();
             
             // Write the captured content to a file
@@ -1251,38 +1260,37 @@ public class HDBManagerMenu {
     
     // Store the last report parameters to re-run it when saving to file
     private BTOProject lastReportProject;
-    private List<BTOApplication> lastReportApplications;
     private int lastReportType;
     
     private void executeLastReport() {
-        if (lastReportApplications == null || lastReportProject == null) {
+        if (lastReportProject == null) {
             System.out.println("No report data available");
             return;
         }
         
         switch (lastReportType) {
             case 1:
-                generateAllApplicationsReport(lastReportApplications, lastReportProject.getProjectName());
+                generateAllApplicationsReport(lastReportProject.getProjectName());
                 break;
             case 2:
-                generateSuccessfulApplicationsReport(lastReportApplications, lastReportProject.getProjectName());
+                generateSuccessfulApplicationsReport(lastReportProject.getProjectName());
                 break;
             case 3:
-                generateBookedFlatsReport(lastReportApplications, lastReportProject.getProjectName());
+                generateBookedFlatsReport(lastReportProject.getProjectName());
                 break;
             case 4:
-                generateApplicationsByFlatTypeReport(lastReportApplications, lastReportProject.getProjectName());
+                generateApplicationsByFlatTypeReport(lastReportProject.getProjectName());
                 break;
             case 5:
-                generateApplicationsByMaritalStatusReport(lastReportApplications, lastReportProject.getProjectName());
+                generateApplicationsByMaritalStatusReport(lastReportProject.getProjectName());
                 break;
         }
     }
 
-    private void generateAllApplicationsReport(List<BTOApplication> applications, String projectName) {
+    private void generateAllApplicationsReport(String projectName) {
         lastReportProject = projectManager.getProject(projectName);
-        lastReportApplications = applications;
         lastReportType = 1;
+        List<BTOApplication> applications = applicationManager.getApplicationsForProject(projectName);
 
         System.out.println("ALL APPLICATIONS REPORT - " + projectName);
         System.out.println("===============================================");
@@ -1361,17 +1369,11 @@ public class HDBManagerMenu {
         }
     }
 
-    private void generateSuccessfulApplicationsReport(List<BTOApplication> applications, String projectName) {
+    private void generateSuccessfulApplicationsReport(String projectName) {
         lastReportProject = projectManager.getProject(projectName);
-        lastReportApplications = applications;
         lastReportType = 2;
 
-        List<BTOApplication> successful = new ArrayList<>();
-        for (BTOApplication app : applications) {
-            if (app.getStatus() == ApplicationStatus.SUCCESSFUL) {
-                successful.add(app);
-            }
-        }
+        List<BTOApplication> successful = applicationManager.getApplicationsForProject(projectName, ApplicationStatus.SUCCESSFUL);
         
         System.out.printf("Total Successful Applications: %d%n%n", successful.size());
         for (BTOApplication app : successful) {
@@ -1379,17 +1381,11 @@ public class HDBManagerMenu {
         }
     }
 
-    private void generateBookedFlatsReport(List<BTOApplication> applications, String projectName) {
+    private void generateBookedFlatsReport(String projectName) {
         lastReportProject = projectManager.getProject(projectName);
-        lastReportApplications = applications;
         lastReportType = 3;
 
-        List<BTOApplication> booked = new ArrayList<>();
-        for (BTOApplication app : applications) {
-            if (app.getStatus() == ApplicationStatus.BOOKED) {
-                booked.add(app);
-            }
-        }
+        List<BTOApplication> booked = applicationManager.getApplicationsForProject(projectName, ApplicationStatus.BOOKED);
         
         System.out.printf("Total Booked Flats: %d%n%n", booked.size());
         for (BTOApplication app : booked) {
@@ -1397,10 +1393,10 @@ public class HDBManagerMenu {
         }
     }
 
-    private void generateApplicationsByFlatTypeReport(List<BTOApplication> applications, String projectName) {
+    private void generateApplicationsByFlatTypeReport(String projectName) {
         lastReportProject = projectManager.getProject(projectName);
-        lastReportApplications = applications;
         lastReportType = 4;
+        List<BTOApplication> applications = applicationManager.getApplicationsForProject(projectName);
 
         Map<FlatType, List<BTOApplication>> appsByFlatType = new HashMap<>();
         
@@ -1459,10 +1455,10 @@ public class HDBManagerMenu {
         }
     }
 
-    private void generateApplicationsByMaritalStatusReport(List<BTOApplication> applications, String projectName) {
+    private void generateApplicationsByMaritalStatusReport(String projectName) {
         lastReportProject = projectManager.getProject(projectName);
-        lastReportApplications = applications;
         lastReportType = 5;
+        List<BTOApplication> applications = applicationManager.getApplicationsForProject(projectName);
 
         Map<MaritalStatus, List<BTOApplication>> appsByMaritalStatus = new HashMap<>();
         
@@ -18,6 +18,7 @@ public class HDBOfficerMenu extends ApplicantMenu {
     private IApplicationManager applicationManager;
     private IEnquiryManager enquiryManager;
     private IUserManager userManager;
+    private static final int SEARCH_RESULT_LIMIT = 20;
 
     public HDBOfficerMenu(HDBOfficer officer) {
         super(officer);
@@ -200,9 +201,7 @@ public class HDBOfficerMenu extends ApplicantMenu {
 
             if (choice > 0 && choice <= availableProjects.size()) {
                 BTOProject selected = availableProjects.get(choice - 1);
-                if (selected.addOfficer(officer)) {
-                    officer.setAssignedProject(selected);
-                    projectManager.saveProjects();
+                if (projectManager.assignOfficer(selected, officer)) {
                     System.out.println("Registration submitted successfully! Awaiting manager approval.");
                 } else {
                     System.out.println("Failed to register for project.");
@@ -265,7 +264,18 @@ public class HDBOfficerMenu extends ApplicantMenu {
             return;
         }
 
-        System.out.println("\nProject Enquiries:");
+        System.out.print("Search enquiries (leave empty to list all): ");
+        String query = scanner.nextLine().trim();
+        if (!query.isEmpty()) {
+            enquiries = enquiryManager.searchEnquiries(project.getProjectName(), query, SEARCH_RESULT_LIMIT);
+            if (enquiries.isEmpty()) {
+                System.out.println("No enquiries match \"" + query + "\".");
+                return;
+            }
+        }
+
+        int pending = enquiryManager.getUnrepliedEnquiriesForProject(project.getProjectName()).size();
+        System.out.println("\nProject Enquiries (" + pending + " awaiting reply):");
         String[] headers = {"No.", "From", "Content", "Reply Status"};
         String[][] data = new String[enquiries.size()][4];
         
@@ -409,25 +419,21 @@ public class HDBOfficerMenu extends ApplicantMenu {
             System.out.printf("Processing flat booking for %s (NRIC: %s)%n", 
                 applicant.getName(), applicant.getNric());
             
-            // Display available flat types with remaining units
+            // Display available flat types with unbooked units
             System.out.println("\nAvailable Flat Types:");
-            String[] headers = {"No.", "Flat Type", "Remaining Units", "Eligible"};
+            String[] headers = {"No.", "Flat Type", "Unbooked Units", "Eligible"};
             
-            Map<FlatType, Integer> remainingUnits = project.getRemainingUnits();
             List<FlatType> availableFlatTypes = new ArrayList<>();
             
-            // Filter flat types with remaining units > 0 that the applicant is eligible for
-            for (Map.Entry<FlatType, Integer> entry : remainingUnits.entrySet()) {
-                FlatType flatType = entry.getKey();
-                int units = entry.getValue();
-                
-                if (units > 0 && applicant.canApplyForFlatType(flatType)) {
+            // Filter flat types with unbooked units that the applicant is eligible for
+            for (FlatType flatType : project.getFlatUnits().keySet()) {
+                if (project.getUnbookedUnits(flatType) > 0 && applicant.canApplyForFlatType(flatType)) {
                     availableFlatTypes.add(flatType);
                 }
             }
             
             if (availableFlatTypes.isEmpty()) {
-                System.out.println("No eligible flat types with remaining units available.");
+                System.out.println("No eligible flat types with unbooked units available.");
                 return;
             }
             
@@ -436,7 +442,7 @@ public class HDBOfficerMenu extends ApplicantMenu {
                 FlatType flatType = availableFlatTypes.get(i);
                 data[i][0] = String.valueOf(i + 1);
                 data[i][1] = flatType.getDisplayName();
-                data[i][2] = String.valueOf(remainingUnits.get(flatType));
+                data[i][2] = String.valueOf(project.getUnbookedUnits(flatType));
                 data[i][3] = "Yes";
             }
             
@@ -478,15 +484,15 @@ public class HDBOfficerMenu extends ApplicantMenu {
                     project.getProjectName(), 
                     applicant.getName());
                 
-                // Display updated remaining units information
-                System.out.println("\nRemaining Units after Booking:");
-                String[] updatedHeaders = {"Flat Type", "Remaining Units"};
-                String[][] updatedData = new String[project.getRemainingUnits().size()][2];
+                // Display updated unbooked units information
+                System.out.println("\nUnbooked Units after Booking:");
+                String[] updatedHeaders = {"Flat Type", "Unbooked Units"};
+                String[][] updatedData = new String[project.getFlatUnits().size()][2];
                 
                 int i = 0;
-                for (Map.Entry<FlatType, Integer> entry : project.getRemainingUnits().entrySet()) {
-                    updatedData[i][0] = entry.getKey().getDisplayName();
-                    updatedData[i][1] = String.valueOf(entry.getValue());
+                for (FlatType flatType : project.getFlatUnits().keySet()) {
+                    updatedData[i][0] = flatType.getDisplayName();
+                    updatedData[i][1] = String.valueOf(project.getUnbookedUnits(flatType));
                     i++;
                 }
                 
@@ -509,9 +515,8 @@ public class HDBOfficerMenu extends ApplicantMenu {
                     System.err.println("Error saving receipt: " + e.getMessage());
                 }
                 
-                // Ensure all databases are updated
-                projectManager.saveProjects(); // Save updated flat unit counts
-                applicationManager.saveApplications(); // Save application status changes
+                // The booking is already queued; wait until it is on disk
+                applicationManager.commitChanges();
                 
                 // Notify the user about updates to the applicant's profile
                 System.out.println("\nAll database records have been updated successfully:");
@@ -543,11 +548,8 @@ public class HDBOfficerMenu extends ApplicantMenu {
             return;
         }
 
-        List<BTOApplication> applications = applicationManager.getApplicationsForProject(project.getProjectName());
-        if (applications.isEmpty()) {
-            System.out.println("No applications for this project.");
-            return;
-        }
+        List<BTOApplication> applications =
+            applicationManager.getApplicationsForProject(project.getProjectName(), ApplicationStatus.BOOKED);
 
         System.out.println("\nBooked Applications:");
         int count = 0;
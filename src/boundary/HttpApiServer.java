@@ -0,0 +1,671 @@
+package boundary;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import control.*;
+import entity.*;
+import enums.*;
+import interfaces.*;
+import util.JsonReader;
+import util.JsonWriter;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON API over the project, application and enquiry managers, for portals that
+ * would otherwise have to drive the console menus. Listens on the loopback interface
+ * with the JDK's built-in HTTP server, keeping connections alive between requests.
+ * Every request signs in with HTTP Basic authentication (NRIC and password) and is
+ * allowed what the same user could do in the menus.
+ * List responses are streamed item by item with chunked encoding. The project listing
+ * carries an ETag keyed on the catalog snapshot version, so a client repeating the request with
+ * If-None-Match gets 304 Not Modified until a project is added, removed or changes its
+ * visibility, neighborhood or application period.
+ *
+ * GET    /api/projects[?all=true|neighborhood=text&maxEdits=n]
+ * GET    /api/projects/{name}
+ * GET    /api/projects/{name}/applications[?status=STATUS]
+ * GET    /api/projects/{name}/enquiries[?unreplied=true|q=text&limit=n]
+ * GET    /api/applications?status=STATUS
+ * GET    /api/applications/me
+ * POST   /api/applications                        {"project", "flatType"}
+ * GET    /api/applications/{nric}
+ * POST   /api/applications/{nric}/status          {"status"}
+ * POST   /api/applications/{nric}/withdrawal
+ * POST   /api/applications/{nric}/withdrawal/approve
+ * POST   /api/applications/{nric}/withdrawal/reject
+ * POST   /api/applications/{nric}/booking         {"flatType"}
+ * GET    /api/enquiries/me
+ * POST   /api/enquiries                           {"project", "content"}
+ * GET    /api/enquiries/{id}
+ * PUT    /api/enquiries/{id}                      {"content"}
+ * DELETE /api/enquiries/{id}
+ * POST   /api/enquiries/{id}/reply                {"reply"}
+ *
+ * Usage: java boundary.HttpApiServer [port]
+ */
+public class HttpApiServer {
+    private static final int DEFAULT_PORT = 8002;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final IUserManager userManager;
+    private final IProjectManager projectManager;
+    private final IApplicationManager applicationManager;
+    private final IEnquiryManager enquiryManager;
+
+    /**
+     * A request that cannot be served, answered with its status and message
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface JsonBody {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private interface ItemWriter<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+
+    /**
+     * Binds the server to the loopback interface without starting it
+     * @param port The port, or 0 for any free port
+     */
+    public HttpApiServer(int port) throws IOException {
+        this.userManager = UserManager.getInstance();
+        this.projectManager = ProjectManager.getInstance();
+        this.applicationManager = ApplicationManager.getInstance();
+        this.enquiryManager = EnquiryManager.getInstance();
+        // Headers and chunks go out as separate small writes; without TCP_NODELAY each
+        // response can wait for the client's delayed acknowledgement
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 512);
+        // Each request gets a virtual thread of its own
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("btoms-http-", 1).factory());
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, giving those in progress up to a second to finish
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            User user = authenticate(exchange);
+            if (user == null) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"BTOMS\", charset=\"UTF-8\"");
+                throw new ApiException(401, "Sign in with your NRIC and password");
+            }
+            List<String> path = pathSegments(exchange);
+            String resource = path.isEmpty() ? "" : path.remove(0);
+            switch (resource) {
+                case "projects":
+                    routeProjects(exchange, user, path);
+                    break;
+                case "applications":
+                    routeApplications(exchange, user, path);
+                    break;
+                case "enquiries":
+                    routeEnquiries(exchange, user, path);
+                    break;
+                default:
+                    throw new ApiException(404, "No such resource");
+            }
+        } catch (ApiException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Checks the request's Basic credentials
+     * @return The signed-in user, or null if the credentials are missing or wrong
+     */
+    private User authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = credentials.indexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        User user = userManager.getUser(credentials.substring(0, colon));
+        return user != null && user.validatePassword(credentials.substring(colon + 1)) ? user : null;
+    }
+
+    // Projects
+
+    private void routeProjects(HttpExchange exchange, User user, List<String> path) throws IOException {
+        requireMethod(exchange, "GET");
+        if (path.isEmpty()) {
+            listProjects(exchange, user);
+            return;
+        }
+        BTOProject project = projectManager.getProject(path.get(0));
+        if (project == null || !canSee(user, project)) {
+            throw new ApiException(404, "No such project");
+        }
+        Map<String, String> query = queryParameters(exchange);
+        if (path.size() == 1) {
+            sendObject(exchange, 200, json -> writeProjectDetails(json, project));
+        } else if (path.size() == 2 && path.get(1).equals("applications")) {
+            requireStaffOf(user, project);
+            String status = query.get("status");
+            streamList(exchange, status == null
+                ? applicationManager.getApplicationsForProject(project.getProjectName())
+                : applicationManager.getApplicationsForProject(project.getProjectName(), parseEnum(ApplicationStatus.class, status)),
+                this::writeApplication);
+        } else if (path.size() == 2 && path.get(1).equals("enquiries")) {
+            requireStaffOf(user, project);
+            String name = project.getProjectName();
+            List<Enquiry> enquiries;
+            if (query.containsKey("q")) {
+                enquiries = enquiryManager.searchEnquiries(name, query.get("q"), parseInt(query.getOrDefault("limit", "20")));
+            } else if (Boolean.parseBoolean(query.get("unreplied"))) {
+                enquiries = enquiryManager.getUnrepliedEnquiriesForProject(name);
+            } else {
+                enquiries = enquiryManager.getEnquiriesForProject(name);
+            }
+            streamList(exchange, enquiries, this::writeEnquiry);
+        } else {
+            throw new ApiException(404, "No such resource");
+        }
+    }
+
+    /**
+     * Lists the projects the user may browse, answering 304 if the client's copy is current
+     */
+    private void listProjects(HttpExchange exchange, User user) throws IOException {
+        Map<String, String> query = queryParameters(exchange);
+        if (query.containsKey("neighborhood")) {
+            List<BTOProject> matches = new ArrayList<>();
+            for (BTOProject project : projectManager.findProjectsByNeighborhood(query.get("neighborhood"),
+                    parseInt(query.getOrDefault("maxEdits", "1")))) {
+                if (canSee(user, project)) {
+                    matches.add(project);
+                }
+            }
+            streamList(exchange, matches, this::writeProjectSummary);
+            return;
+        }
+
+        boolean all = Boolean.parseBoolean(query.get("all"));
+        if (all && !(user instanceof HDBManager)) {
+            throw new ApiException(403, "Only HDB managers can list every project");
+        }
+        // Take the snapshot first, so the tag can only understate how new a filtered listing is
+        ProjectManager.CatalogSnapshot catalog = ProjectManager.getInstance().getCatalog();
+        long version = catalog.version();
+        List<BTOProject> projects = all ? catalog.projects() : projectManager.getVisibleProjectsForUser(user);
+        int names = 1;
+        for (BTOProject project : projects) {
+            names = 31 * names + project.getProjectName().hashCode();
+        }
+        String etag = "\"" + version + "-" + Integer.toHexString(names) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "private, no-cache");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            sendEmpty(exchange, 304);
+            return;
+        }
+        streamList(exchange, projects, this::writeProjectSummary);
+    }
+
+    // Applications
+
+    private void routeApplications(HttpExchange exchange, User user, List<String> path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.isEmpty()) {
+            if (method.equals("POST")) {
+                createApplication(exchange, user);
+                return;
+            }
+            requireMethod(exchange, "GET");
+            if (!(user instanceof HDBManager)) {
+                throw new ApiException(403, "Only HDB managers can list applications by status");
+            }
+            String status = queryParameters(exchange).get("status");
+            if (status == null) {
+                throw new ApiException(400, "The status parameter is required");
+            }
+            streamList(exchange, applicationManager.getApplicationsByStatus(parseEnum(ApplicationStatus.class, status)),
+                this::writeApplication);
+            return;
+        }
+
+        String nric = path.get(0).equals("me") ? user.getNric() : path.get(0);
+        BTOApplication application = applicationManager.getApplicationForApplicant(nric);
+        boolean own = nric.equals(user.getNric());
+        if (application == null || !(own || isStaffOf(user, application.getProject()))) {
+            throw new ApiException(404, "No such application");
+        }
+        String action = path.size() > 1 ? String.join("/", path.subList(1, path.size())) : "";
+        switch (action) {
+            case "":
+                requireMethod(exchange, "GET");
+                break;
+            case "status":
+                requireMethod(exchange, "POST");
+                requireManagerOf(user, application.getProject());
+                ApplicationStatus status = parseEnum(ApplicationStatus.class, requireField(readBody(exchange), "status"));
+                ApplicationStatus current = application.getStatus();
+                boolean allowed = current == ApplicationStatus.PENDING
+                    ? status == ApplicationStatus.SUCCESSFUL || status == ApplicationStatus.UNSUCCESSFUL
+                    : current == ApplicationStatus.UNSUCCESSFUL && status == ApplicationStatus.SUCCESSFUL;
+                if (!allowed || !applicationManager.updateApplicationStatus(application, status)) {
+                    throw new ApiException(409, "Cannot change the application from " + current + " to " + status);
+                }
+                break;
+            case "withdrawal":
+                requireMethod(exchange, "POST");
+                if (!own) {
+                    throw new ApiException(403, "Only the applicant can request a withdrawal");
+                }
+                if (application.isWithdrawalRequested() || application.getStatus() == ApplicationStatus.WITHDRAWN
+                        || !applicationManager.requestWithdrawal(application)) {
+                    throw new ApiException(409, "A withdrawal cannot be requested for this application");
+                }
+                break;
+            case "withdrawal/approve":
+            case "withdrawal/reject":
+                requireMethod(exchange, "POST");
+                requireManagerOf(user, application.getProject());
+                boolean decided = action.endsWith("approve")
+                    ? applicationManager.approveWithdrawal(application)
+                    : applicationManager.rejectWithdrawal(application);
+                if (!decided) {
+                    throw new ApiException(409, "No withdrawal request is pending for this application");
+                }
+                break;
+            case "booking":
+                requireMethod(exchange, "POST");
+                if (!(user instanceof HDBOfficer) || !isStaffOf(user, application.getProject())) {
+                    throw new ApiException(403, "Only an officer of the project can book flats");
+                }
+                FlatType flatType = parseEnum(FlatType.class, requireField(readBody(exchange), "flatType"));
+                if (!applicationManager.bookFlatWithType(application, flatType)) {
+                    throw new ApiException(409, "The flat could not be booked");
+                }
+                break;
+            default:
+                throw new ApiException(404, "No such resource");
+        }
+        sendObject(exchange, 200, json -> writeApplication(json, application));
+    }
+
+    private void createApplication(HttpExchange exchange, User user) throws IOException {
+        if (!(user instanceof Applicant)) {
+            throw new ApiException(403, "Only applicants can apply for projects");
+        }
+        Applicant applicant = (Applicant) user;
+        Map<String, String> body = readBody(exchange);
+        BTOProject project = projectManager.getProject(requireField(body, "project"));
+        FlatType flatType = parseEnum(FlatType.class, requireField(body, "flatType"));
+        if (project == null || !projectManager.getVisibleProjectsForUser(user).contains(project)) {
+            throw new ApiException(404, "No such project open for application");
+        }
+        if (!applicant.canApplyForFlatType(flatType) || !project.offersFlatType(flatType)
+                || project.getActualRemainingUnits(flatType) <= 0) {
+            throw new ApiException(409, "No " + flatType + " units are available to you in this project");
+        }
+        if (!applicationManager.createApplication(applicant, project, flatType)) {
+            throw new ApiException(409, "You already have an active application");
+        }
+        sendObject(exchange, 201, json -> writeApplication(json, applicant.getCurrentApplication()));
+    }
+
+    // Enquiries
+
+    private void routeEnquiries(HttpExchange exchange, User user, List<String> path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.isEmpty()) {
+            requireMethod(exchange, "POST");
+            Map<String, String> body = readBody(exchange);
+            BTOProject project = projectManager.getProject(requireField(body, "project"));
+            if (project == null || !canSee(user, project)) {
+                throw new ApiException(404, "No such project");
+            }
+            Enquiry enquiry = enquiryManager.createEnquiry(user, project, requireField(body, "content"));
+            sendObject(exchange, 201, json -> writeEnquiry(json, enquiry));
+            return;
+        }
+        if (path.get(0).equals("me")) {
+            requireMethod(exchange, "GET");
+            streamList(exchange, enquiryManager.getEnquiriesForUser(user.getNric()), this::writeEnquiry);
+            return;
+        }
+
+        String id = path.get(0);
+        Enquiry enquiry = enquiryManager.getEnquiry(id);
+        if (enquiry == null || !(enquiry.getCreator().getNric().equals(user.getNric()) || isStaffOf(user, enquiry.getProject()))) {
+            throw new ApiException(404, "No such enquiry");
+        }
+        if (path.size() == 2 && path.get(1).equals("reply")) {
+            requireMethod(exchange, "POST");
+            String reply = requireField(readBody(exchange), "reply");
+            boolean replied = user instanceof HDBManager
+                ? !enquiry.hasReply() && enquiryManager.replyToEnquiry(id, reply, (HDBManager) user)
+                : isStaffOf(user, enquiry.getProject()) && enquiryManager.addReply(id, reply, user);
+            if (!replied) {
+                throw new ApiException(409, "The enquiry cannot be replied to");
+            }
+        } else if (path.size() != 1) {
+            throw new ApiException(404, "No such resource");
+        } else if (method.equals("PUT")) {
+            if (!enquiryManager.updateEnquiry(id, requireField(readBody(exchange), "content"), user)) {
+                throw new ApiException(409, "The enquiry cannot be edited");
+            }
+        } else if (method.equals("DELETE")) {
+            if (!enquiryManager.deleteEnquiry(id, user)) {
+                throw new ApiException(409, "The enquiry cannot be deleted");
+            }
+            sendEmpty(exchange, 204);
+            return;
+        } else {
+            requireMethod(exchange, "GET");
+        }
+        sendObject(exchange, 200, json -> writeEnquiry(json, enquiry));
+    }
+
+    // Access rules, as in the menus
+
+    /**
+     * Whether the user may look at a project: managers see every project, others
+     * the visible ones and any project they applied to or handle
+     */
+    private boolean canSee(User user, BTOProject project) {
+        if (user instanceof HDBManager || project.isVisible() || isStaffOf(user, project)) {
+            return true;
+        }
+        BTOApplication application = user instanceof Applicant ? ((Applicant) user).getCurrentApplication() : null;
+        return application != null && application.getProject() == project;
+    }
+
+    /**
+     * Whether the user manages the project or is an approved officer of it
+     */
+    private boolean isStaffOf(User user, BTOProject project) {
+        if (user instanceof HDBManager) {
+            return ((HDBManager) user).managesProject(project);
+        }
+        if (user instanceof HDBOfficer) {
+            HDBOfficer officer = (HDBOfficer) user;
+            return officer.getAssignedProject() == project && officer.isRegistrationApproved();
+        }
+        return false;
+    }
+
+    private void requireStaffOf(User user, BTOProject project) {
+        if (!isStaffOf(user, project)) {
+            throw new ApiException(403, "Only the manager or officers of the project can do this");
+        }
+    }
+
+    private void requireManagerOf(User user, BTOProject project) {
+        if (!(user instanceof HDBManager) || !((HDBManager) user).managesProject(project)) {
+            throw new ApiException(403, "Only the manager of the project can do this");
+        }
+    }
+
+    // Requests
+
+    /**
+     * Rejects a request made with another method; HEAD is accepted wherever GET is
+     */
+    private static void requireMethod(HttpExchange exchange, String method) {
+        String requested = exchange.getRequestMethod();
+        if (!requested.equals(method) && !(requested.equals("HEAD") && method.equals("GET"))) {
+            exchange.getResponseHeaders().set("Allow", method);
+            throw new ApiException(405, "Use " + method);
+        }
+    }
+
+    /**
+     * Splits the path after /api/ into its decoded segments
+     */
+    private static List<String> pathSegments(HttpExchange exchange) {
+        List<String> segments = new ArrayList<>();
+        String path = exchange.getRequestURI().getRawPath().substring("/api/".length());
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+                String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+                parameters.putIfAbsent(name, value);
+            }
+        }
+        return parameters;
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new ApiException(413, "The request body is too large");
+        }
+        return JsonReader.parseObject(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static String requireField(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, "The " + name + " field is required");
+        }
+        return value;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Unknown " + type.getSimpleName() + " " + value);
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Not a number: " + value);
+        }
+    }
+
+    // Responses
+
+    /**
+     * Sends a small JSON body with its length, so the connection stays open for the next request
+     */
+    private static void sendObject(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+        body.write(new JsonWriter(writer));
+        writer.flush();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            sendEmpty(exchange, status);
+            return;
+        }
+        exchange.sendResponseHeaders(status, buffer.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            buffer.writeTo(out);
+        }
+    }
+
+    /**
+     * Sends a JSON array with chunked encoding, writing each item as it is reached
+     */
+    private static <T> void streamList(HttpExchange exchange, Collection<T> items, ItemWriter<T> itemWriter) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            sendEmpty(exchange, 200);
+            return;
+        }
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192)) {
+            JsonWriter json = new JsonWriter(writer);
+            json.beginArray();
+            for (T item : items) {
+                itemWriter.write(json, item);
+            }
+            json.endArray();
+        }
+    }
+
+    /**
+     * Sends a response without a body. The request body is consumed first: the server
+     * finishes such an exchange straight away and drops the connection if it was not.
+     */
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            sendObject(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+        } catch (IOException e) {
+            // The client has gone away
+        } catch (IllegalStateException e) {
+            // The response was already under way; closing the exchange cuts it short
+        }
+    }
+
+    private void writeProjectSummary(JsonWriter json, BTOProject project) throws IOException {
+        json.beginObject()
+            .name("name").value(project.getProjectName())
+            .name("neighborhood").value(project.getNeighborhood())
+            .name("openDate").value(project.getApplicationOpenDate())
+            .name("closeDate").value(project.getApplicationCloseDate())
+            .name("visible").value(project.isVisible())
+            .name("manager").value(project.getManager() != null ? project.getManager().getNric() : null)
+            .name("flatTypes").beginObject();
+        for (FlatType type : FlatType.values()) {
+            if (project.offersFlatType(type)) {
+                json.name(type.name()).value(project.totalUnits(type));
+            }
+        }
+        json.endObject().endObject();
+    }
+
+    private void writeProjectDetails(JsonWriter json, BTOProject project) throws IOException {
+        json.beginObject()
+            .name("name").value(project.getProjectName())
+            .name("neighborhood").value(project.getNeighborhood())
+            .name("openDate").value(project.getApplicationOpenDate())
+            .name("closeDate").value(project.getApplicationCloseDate())
+            .name("visible").value(project.isVisible())
+            .name("manager").value(project.getManager() != null ? project.getManager().getNric() : null)
+            .name("officerSlots").value(project.getMaxOfficerSlots())
+            .name("remainingOfficerSlots").value(project.getRemainingOfficerSlots())
+            .name("flatTypes").beginObject();
+        for (FlatType type : FlatType.values()) {
+            if (project.offersFlatType(type)) {
+                json.name(type.name()).beginObject()
+                    .name("totalUnits").value(project.totalUnits(type))
+                    .name("remainingUnits").value(project.getRemainingUnits(type))
+                    .name("unbookedUnits").value(project.getUnbookedUnits(type))
+                    .endObject();
+            }
+        }
+        json.endObject().endObject();
+    }
+
+    private void writeApplication(JsonWriter json, BTOApplication application) throws IOException {
+        Applicant applicant = application.getApplicant();
+        json.beginObject()
+            .name("applicant").value(applicant.getNric())
+            .name("applicantName").value(applicant.getName())
+            .name("project").value(application.getProjectName())
+            .name("status").value(application.getStatus())
+            .name("flatType").value(application.getSelectedFlatType())
+            .name("assignedFlatType").value(application.getAssignedFlatType())
+            .name("withdrawalRequested").value(application.isWithdrawalRequested())
+            .name("applicationDate").value(application.getApplicationDate())
+            .endObject();
+    }
+
+    private void writeEnquiry(JsonWriter json, Enquiry enquiry) throws IOException {
+        json.beginObject()
+            .name("id").value(enquiry.getId())
+            .name("project").value(enquiry.getProject().getProjectName())
+            .name("creator").value(enquiry.getCreator().getNric())
+            .name("content").value(enquiry.getContent())
+            .name("reply").value(enquiry.getReply())
+            .name("createdAt").value(enquiry.getCreationTime())
+            .name("repliedAt").value(enquiry.getReplyTime())
+            .endObject();
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("btoms.http.port", DEFAULT_PORT);
+        MainMenu.loadStores();
+        try {
+            HttpApiServer server = new HttpApiServer(port);
+            server.start();
+            System.out.println("BTO Management System API listening on http://localhost:" + server.getPort() + "/api/");
+        } catch (IOException e) {
+            System.err.println("Error starting API server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -6,28 +6,39 @@ import interfaces.*;
 import java.util.Scanner;
 import java.io.*;
 import java.util.Arrays;
+import java.util.Map;
+import util.SystemLogger;
 
 public class MainMenu {
-    private static Scanner scanner = new Scanner(System.in);
+    private Scanner scanner;
     private IUserManager userManager;
     private IProjectManager projectManager;
 
     public MainMenu() {
+        scanner = SessionContext.current().getScanner();
         userManager = UserManager.getInstance();
         projectManager = ProjectManager.getInstance();
     }
 
+    /**
+     * Runs the menus of the current session until the user chooses to exit
+     */
     public void start() {
         while (true) {
             if (userManager.getCurrentUser() == null) {
-                showLoginMenu();
+                if (!showLoginMenu()) {
+                    return;
+                }
             } else {
                 showMainMenu();
             }
         }
     }
 
-    private void showLoginMenu() {
+    /**
+     * @return False if the user chose to exit
+     */
+    private boolean showLoginMenu() {
         while (true) {
             System.out.println("\n=== BTO Management System ===");
             System.out.println("1. Login");
@@ -41,11 +52,10 @@ public class MainMenu {
                 switch (choice) {
                     case 1:
                         login();
-                        return;
+                        return true;
                     case 2:
                         System.out.println("Thank you for using BTO Management System!");
-                        System.exit(0);
-                        break;
+                        return false;
                     default:
                         System.out.println("Invalid option. Please enter 1 or 2.");
                 }
@@ -85,7 +95,7 @@ public class MainMenu {
 
     // Helper method to read password securely without displaying it
     private String readPassword() {
-        Console console = System.console();
+        Console console = SessionContext.current().getConsole();
         if (console != null) {
             // If console is available, use it to read password securely
             char[] passwordChars = console.readPassword("Enter password: ");
@@ -128,9 +138,20 @@ public class MainMenu {
     }
 
     public static void main(String[] args) {
-        new File("database").mkdirs();
+        loadStores();
         
-        String[] files = {"users.txt", "projects.txt", "applications.txt", "enquiries.txt"};
+        new MainMenu().start();
+        System.exit(0);
+    }
+
+    /**
+     * Creates any missing database files, loads every store and sends System.out
+     * to whichever session is printing. Used by every entry point.
+     */
+    static void loadStores() {
+        new File("database/projects").mkdirs();
+        
+        String[] files = {"users.txt", "applications.txt", "enquiries.txt"};
         for (String file : files) {
             try {
                 new File("database/" + file).createNewFile();
@@ -139,6 +160,12 @@ public class MainMenu {
             }
         }
         
-        new MainMenu().start();
+        // Load every store up front, in parallel where dependencies allow
+        Map<String, Long> timings = DataBootstrap.run();
+        SystemLogger.logStartup(timings);
+        if (Boolean.getBoolean("btoms.bootstrap.verbose")) {
+            System.out.println("Startup timings (ms): " + timings);
+        }
+        SessionContext.routeSystemOut();
     }
 }
\ No newline at end of file
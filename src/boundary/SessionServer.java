@@ -0,0 +1,124 @@
+package boundary;
+
+import control.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the menus to many users at once over plain-text TCP connections on the
+ * local machine, e.g. with telnet or nc. Every connection is a session with its own
+ * signed-in user and I/O, running the same login and role menus as the console on a
+ * thread of its own, while all sessions share the managers and their data.
+ * Each session runs on a virtual thread of its own, so thousands of mostly idle sessions
+ * fit in one JVM, and at most -Dbtoms.server.maxSessions (default 4096) run at a time.
+ * Usage: java boundary.SessionServer [port]
+ */
+public class SessionServer {
+    private static final int DEFAULT_PORT = 2002;
+
+    private final ServerSocket serverSocket;
+    private final Semaphore sessionSlots;
+    private final ExecutorService sessions;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    /**
+     * Opens the listening socket on the loopback interface and routes System.out to
+     * the sessions
+     * @param port The port, or 0 for any free port
+     * @param maxSessions Maximum number of sessions running at once
+     */
+    public SessionServer(int port, int maxSessions) throws IOException {
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        this.sessionSlots = new Semaphore(maxSessions);
+        SessionContext.routeSystemOut();
+        this.sessions = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("btoms-session-", 1).factory());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (!sessionSlots.tryAcquire()) {
+                    try (socket) {
+                        socket.getOutputStream().write("Too many sessions. Please try again later.\r\n"
+                            .getBytes(StandardCharsets.UTF_8));
+                    }
+                    continue;
+                }
+                sessions.execute(() -> {
+                    try {
+                        runSession(socket);
+                    } finally {
+                        sessionSlots.release();
+                    }
+                });
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Error accepting connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the menus for one connection on the calling thread until the user exits
+     * or the client disconnects. A session left signed in is logged out.
+     */
+    private void runSession(Socket socket) {
+        activeSessions.incrementAndGet();
+        try (socket; SessionContext session = SessionContext.open(socket.getInputStream(), socket.getOutputStream())) {
+            socket.setTcpNoDelay(true);
+            try {
+                new MainMenu().start();
+            } catch (NoSuchElementException e) {
+                // The client hung up while a menu was waiting for input
+            } finally {
+                if (session.getUser() != null) {
+                    UserManager.getInstance().logout();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error in session: " + e.getMessage());
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting connections. Running sessions end when their clients disconnect.
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdown();
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("btoms.server.port", DEFAULT_PORT);
+        MainMenu.loadStores();
+        try {
+            SessionServer server = new SessionServer(port, Integer.getInteger("btoms.server.maxSessions", 4096));
+            System.out.println("BTO Management System listening on " + server.serverSocket.getLocalSocketAddress());
+            server.serve();
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
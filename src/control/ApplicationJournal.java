@@ -0,0 +1,124 @@
+package control;
+
+import util.ChecksummedFile;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only write-ahead journal for application mutations.
+ * Each record is a complete application line keyed by the applicant's NRIC,
+ * so replaying the journal on top of the last snapshot restores the latest state.
+ * Appends are forced to disk according to the fsync policy, and a final record
+ * torn by a crash (one without its line break) is skipped on replay.
+ */
+public class ApplicationJournal {
+    private final String journalPath;
+    private final int compactThreshold;
+    private final long compactIntervalMillis;
+    private int recordCount;
+    private long lastCompactionTime;
+
+    /**
+     * Creates a journal backed by the given file
+     * @param journalPath Path of the journal file
+     * @param compactThreshold Number of records after which a compaction is due
+     * @param compactIntervalMillis Time after which a non-empty journal is due for compaction
+     */
+    public ApplicationJournal(String journalPath, int compactThreshold, long compactIntervalMillis) {
+        this.journalPath = journalPath;
+        this.compactThreshold = compactThreshold;
+        this.compactIntervalMillis = compactIntervalMillis;
+        this.recordCount = 0;
+        this.lastCompactionTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Appends a batch of records to the end of the journal in one write
+     * @param records The encoded application lines, oldest first
+     */
+    public void appendAll(List<String> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        StringBuilder batch = new StringBuilder();
+        for (String record : records) {
+            batch.append(record).append('\n');
+        }
+        try (FileOutputStream out = new FileOutputStream(journalPath, true)) {
+            out.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+            ChecksummedFile.force(out.getChannel());
+            recordCount += records.size();
+        } catch (IOException e) {
+            System.err.println("Error appending to application journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Feeds every record in the journal, oldest first, to the given consumer
+     * @param consumer Receives each encoded application line
+     */
+    public void replay(Consumer<String> consumer) {
+        File file = new File(journalPath);
+        if (!file.exists()) {
+            return;
+        }
+
+        try {
+            // The journal is bounded by compaction, so it is read in one go
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            int start = 0;
+            for (int end = 0; end < bytes.length; end++) {
+                if (bytes[end] == '\n') {
+                    if (end > start) {
+                        consumer.accept(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+                        recordCount++;
+                    }
+                    start = end + 1;
+                }
+            }
+            if (start < bytes.length) {
+                // Cut the torn record off so the next append starts on a fresh line
+                System.err.println("Skipping incomplete last record in application journal");
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(start);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying application journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Empties the journal once its records have been folded into a snapshot
+     */
+    public void truncate() {
+        try {
+            new FileWriter(journalPath).close();
+            recordCount = 0;
+            lastCompactionTime = System.currentTimeMillis();
+        } catch (IOException e) {
+            System.err.println("Error truncating application journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether the journal has grown enough, or aged enough, to be compacted
+     * @return True if the snapshot should be rewritten and the journal truncated
+     */
+    public boolean needsCompaction() {
+        if (recordCount == 0) {
+            return false;
+        }
+        return recordCount >= compactThreshold ||
+               System.currentTimeMillis() - lastCompactionTime >= compactIntervalMillis;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+}
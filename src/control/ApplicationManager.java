@@ -3,181 +3,419 @@ package control;
 import entity.*;
 import enums.*;
 import interfaces.*;
+import util.RecordFields;
+import util.StripedLocks;
 import java.util.*;
-import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Safe to share between sessions. Each project's applications and indexes are guarded by
+ * the project's lock (see ProjectManager.lockProjects), and an applicant's lock is held
+ * while their current application is replaced, so concurrent changes to different projects
+ * never wait for each other.
+ */
 public class ApplicationManager implements IApplicationManager {
-    private static ApplicationManager instance;
-    private List<BTOApplication> applications;
+    private static volatile ApplicationManager instance;
+    private Map<String, BTOApplication> applications; // Keyed by applicant NRIC
+    // Per-project indexes; the sets are only touched under the project's lock
+    private Map<String, Set<BTOApplication>> applicationsByProject;
+    private Map<String, Map<ApplicationStatus, Set<BTOApplication>>> applicationsByProjectStatus;
+    private final StripedLocks applicantLocks;
+    private Queue<String[]> pendingRecords;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * An application as read from disk, before its applicant and project are linked
+     */
+    record ApplicationRecord(String nric, String projectName, FlatType flatType, ApplicationStatus status,
+                             boolean withdrawalRequested, FlatType assignedFlatType) {
+    }
+
     private ApplicationManager() {
-        applications = new ArrayList<>();
-        loadApplications();
+        applications = new ConcurrentHashMap<>();
+        applicationsByProject = new ConcurrentHashMap<>();
+        applicationsByProjectStatus = new ConcurrentHashMap<>();
+        applicantLocks = new StripedLocks(Integer.getInteger("btoms.lockStripes", 64));
+        pendingRecords = new ConcurrentLinkedQueue<>();
+        PersistenceCoordinator.getInstance().register("applications", this::flushApplications);
     }
 
     public static ApplicationManager getInstance() {
-        if (instance == null) {
-            instance = new ApplicationManager();
+        ApplicationManager current = instance;
+        if (current == null) {
+            synchronized (ApplicationManager.class) {
+                if (instance == null) {
+                    bootstrap(parseApplications());
+                }
+                current = instance;
+            }
         }
-        return instance;
+        return current;
     }
 
-    private void loadApplications() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("database/applications.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                Applicant applicant = (Applicant) UserManager.getInstance().getUser(parts[0]);
-                BTOProject project = ProjectManager.getInstance().getProject(parts[1]);
-                FlatType flatType = FlatType.valueOf(parts[2]);
-                
-                BTOApplication application = new BTOApplication(applicant, project, flatType);
-                application.setStatus(ApplicationStatus.valueOf(parts[3]));
-                
-                if (parts.length > 4 && Boolean.parseBoolean(parts[4])) {
-                    application.requestWithdrawal();
-                }
-                
-                // Load assigned flat type if available
-                if (parts.length > 5 && !parts[5].isEmpty()) {
-                    application.setAssignedFlatType(FlatType.valueOf(parts[5]));
-                }
-                
-                applications.add(application);
-                applicant.setCurrentApplication(application);
-                project.addApplication(application);
+    /**
+     * Creates the singleton from parsed records and links them to their applicants and
+     * projects. Used by DataBootstrap once users and projects are loaded.
+     * @param records The parsed records; a later record for the same applicant replaces an earlier one
+     * @return The installed instance
+     */
+    static ApplicationManager bootstrap(List<ApplicationRecord> records) {
+        ApplicationManager manager = new ApplicationManager();
+        for (ApplicationRecord record : records) {
+            manager.linkApplication(record);
+        }
+        ProjectManager.getInstance().checkSavedUnits();
+        instance = manager;
+        return manager;
+    }
+
+    /**
+     * Parses the applications store without resolving any applicant or project references
+     * @return The parsed records in store order
+     */
+    static List<ApplicationRecord> parseApplications() {
+        List<ApplicationRecord> records = new ArrayList<>();
+        String[] projectName = {null};
+        StorageBackends.get().load("applications", fields -> {
+            // Applications are usually grouped by project, so reuse the last name when possible
+            projectName[0] = fields.getString(1, projectName[0]);
+            records.add(parseRecord(fields, projectName[0]));
+        });
+        return records;
+    }
+
+    private static ApplicationRecord parseRecord(RecordFields fields, String projectName) {
+        return new ApplicationRecord(fields.getString(0), projectName,
+            fields.getEnum(2, FlatType.class),
+            fields.getEnum(3, ApplicationStatus.class),
+            !fields.isEmpty(4) && fields.getBoolean(4),
+            // Load assigned flat type if available
+            fields.isEmpty(5) ? null : fields.getEnum(5, FlatType.class));
+    }
+
+    private void linkApplication(ApplicationRecord record) {
+        Applicant applicant = (Applicant) UserManager.getInstance().getUser(record.nric());
+        BTOProject project = ProjectManager.getInstance().getProject(record.projectName());
+        
+        BTOApplication application = new BTOApplication(applicant, project, record.flatType());
+        application.setStatus(record.status()); // Not indexed yet, so no need for changeStatus
+        
+        if (record.withdrawalRequested()) {
+            application.requestWithdrawal();
+        }
+        
+        if (record.assignedFlatType() != null) {
+            application.setAssignedFlatType(record.assignedFlatType());
+        }
+        
+        BTOApplication previous = applications.get(record.nric());
+        if (previous != null) {
+            unindex(previous);
+            previous.getProject().removeApplication(previous);
+            if (previous.getStatus() == ApplicationStatus.BOOKED) {
+                previous.getProject().releaseUnit(previous.getBookedFlatType());
             }
-        } catch (IOException e) {
-            System.err.println("Error loading applications: " + e.getMessage());
         }
+        
+        if (application.getStatus() == ApplicationStatus.BOOKED && !project.tryReserveUnit(application.getBookedFlatType())) {
+            System.err.println("Error loading application of " + record.nric() + ": more " +
+                application.getBookedFlatType().getDisplayName() + " flats booked than " + project.getProjectName() + " has");
+        }
+        index(application);
+        applicant.setCurrentApplication(application);
+        project.addApplication(application);
+    }
+
+    private static Map<ApplicationStatus, Set<BTOApplication>> newStatusIndex() {
+        Map<ApplicationStatus, Set<BTOApplication>> index = new EnumMap<>(ApplicationStatus.class);
+        for (ApplicationStatus status : ApplicationStatus.values()) {
+            index.put(status, new LinkedHashSet<>());
+        }
+        return index;
+    }
+
+    /**
+     * Adds an application to the applicant, project and status indexes. It goes to the
+     * end of each, as appending to the application list used to. Needs the project's lock.
+     */
+    private void index(BTOApplication application) {
+        String projectName = application.getProject().getProjectName();
+        applications.put(application.getApplicant().getNric(), application);
+        applicationsByProject.computeIfAbsent(projectName, name -> new LinkedHashSet<>()).add(application);
+        applicationsByProjectStatus.computeIfAbsent(projectName, name -> newStatusIndex())
+            .get(application.getStatus()).add(application);
+    }
+
+    /**
+     * Removes an application from every index. Needs the project's lock.
+     */
+    private void unindex(BTOApplication application) {
+        String projectName = application.getProject().getProjectName();
+        applications.remove(application.getApplicant().getNric(), application);
+        applicationsByProject.get(projectName).remove(application);
+        applicationsByProjectStatus.get(projectName).get(application.getStatus()).remove(application);
+    }
+
+    /**
+     * Changes an application's status and moves it to the matching status index.
+     * All status changes go through here so the indexes never disagree with the application.
+     * Needs the project's lock.
+     */
+    private void changeStatus(BTOApplication application, ApplicationStatus newStatus) {
+        Map<ApplicationStatus, Set<BTOApplication>> projectIndex =
+            applicationsByProjectStatus.get(application.getProject().getProjectName());
+        projectIndex.get(application.getStatus()).remove(application);
+        application.setStatus(newStatus);
+        projectIndex.get(newStatus).add(application);
+    }
+
+    private static StripedLocks.Held lock(BTOApplication application) {
+        return ProjectManager.lockProjects(application.getProject().getProjectName());
     }
 
+    private String[] toFields(BTOApplication app) {
+        return new String[] {
+            app.getApplicant().getNric(),
+            app.getProject().getProjectName(),
+            app.getSelectedFlatType().name(),
+            app.getStatus().name(),
+            String.valueOf(app.isWithdrawalRequested()),
+            app.getAssignedFlatType() != null ? app.getAssignedFlatType().name() : ""
+        };
+    }
+
+    /**
+     * Persists a single changed application by queueing its record for the next group commit.
+     * Called under the project's lock, so records of one application are queued in order.
+     * @param application The application that changed
+     */
+    private void persist(BTOApplication application) {
+        pendingRecords.add(toFields(application));
+        PersistenceCoordinator.getInstance().markDirty("applications");
+    }
+
+    /**
+     * Hands the queued records to the storage backend in one batch. Called by the PersistenceCoordinator.
+     */
+    private void flushApplications() {
+        List<String[]> records = new ArrayList<>();
+        for (String[] record = pendingRecords.poll(); record != null; record = pendingRecords.poll()) {
+            records.add(record);
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        IStorageBackend backend = StorageBackends.get();
+        if (backend.writesIncrementally("applications")) {
+            backend.write("applications", records, Collections.emptyList());
+        } else {
+            // The queued changes are already applied in memory, so rewrite from there
+            backend.replaceAll("applications", currentRecords());
+        }
+    }
+
+    /**
+     * Writes every queued change now and returns once it is on disk, for changes such
+     * as a booking that must not wait for the next timed flush
+     */
+    @Override
+    public void commitChanges() {
+        PersistenceCoordinator.getInstance().commit();
+    }
+
+    /**
+     * Rewrites the whole store, grouped by project in catalog order. Queued records are
+     * committed first so that no flush can write an older record over the rewrite.
+     */
     @Override
     public void saveApplications() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("database/applications.txt"))) {
-            for (BTOApplication app : applications) {
-                writer.println(String.format("%s|%s|%s|%s|%s|%s",
-                    app.getApplicant().getNric(),
-                    app.getProject().getProjectName(),
-                    app.getSelectedFlatType(),
-                    app.getStatus(),
-                    app.isWithdrawalRequested(),
-                    app.getAssignedFlatType() != null ? app.getAssignedFlatType() : ""));
+        PersistenceCoordinator.getInstance().commit();
+        StorageBackends.get().replaceAll("applications", currentRecords());
+    }
+
+    /**
+     * Gets the record of every application, grouped by project in catalog order
+     */
+    private List<String[]> currentRecords() {
+        Set<String> projectNames = new LinkedHashSet<>();
+        for (BTOProject project : ProjectManager.getInstance().getAllProjects()) {
+            projectNames.add(project.getProjectName());
+        }
+        projectNames.addAll(applicationsByProject.keySet());
+
+        List<String[]> records = new ArrayList<>(applications.size());
+        for (String projectName : projectNames) {
+            StripedLocks.Held held = ProjectManager.lockProjects(projectName);
+            try {
+                for (BTOApplication app : applicationsByProject.getOrDefault(projectName, Collections.emptySet())) {
+                    records.add(toFields(app));
+                }
+            } finally {
+                held.unlock();
             }
-        } catch (IOException e) {
-            System.err.println("Error saving applications: " + e.getMessage());
         }
+        return records;
     }
 
     @Override
     public List<BTOApplication> getApplicationsForProject(String projectName) {
-        List<BTOApplication> projectApplications = new ArrayList<>();
-        for (BTOApplication app : applications) {
-            if (app.getProject().getProjectName().equals(projectName)) {
-                projectApplications.add(app);
-            }
+        StripedLocks.Held held = ProjectManager.lockProjects(projectName);
+        try {
+            Set<BTOApplication> projectApplications = applicationsByProject.get(projectName);
+            return projectApplications != null ? new ArrayList<>(projectApplications) : new ArrayList<>();
+        } finally {
+            held.unlock();
+        }
+    }
+
+    /**
+     * Returns a project's applications with the given status, in the order they reached it
+     */
+    @Override
+    public List<BTOApplication> getApplicationsForProject(String projectName, ApplicationStatus status) {
+        StripedLocks.Held held = ProjectManager.lockProjects(projectName);
+        try {
+            Map<ApplicationStatus, Set<BTOApplication>> projectIndex = applicationsByProjectStatus.get(projectName);
+            return projectIndex != null ? new ArrayList<>(projectIndex.get(status)) : new ArrayList<>();
+        } finally {
+            held.unlock();
+        }
+    }
+
+    /**
+     * Returns the applications across all projects with the given status, grouped by
+     * project in catalog order and each in the order they reached it
+     */
+    @Override
+    public List<BTOApplication> getApplicationsByStatus(ApplicationStatus status) {
+        List<BTOApplication> matches = new ArrayList<>();
+        for (BTOProject project : ProjectManager.getInstance().getAllProjects()) {
+            matches.addAll(getApplicationsForProject(project.getProjectName(), status));
         }
-        return projectApplications;
+        return matches;
+    }
+
+    @Override
+    public BTOApplication getApplicationForApplicant(String nric) {
+        return applications.get(nric);
     }
 
     @Override
     public boolean createApplication(Applicant applicant, BTOProject project, FlatType flatType) {
-        BTOApplication currentApplication = applicant.getCurrentApplication();
-        
-        // If applicant has a current application...
-        if (currentApplication != null) {
-            // Allow creating a new application if the current one is UNSUCCESSFUL or WITHDRAWN
-            if (currentApplication.getStatus() == ApplicationStatus.UNSUCCESSFUL || 
-                currentApplication.getStatus() == ApplicationStatus.WITHDRAWN) {
-                // Remove the old application before creating a new one
-                applications.remove(currentApplication);
-                currentApplication.getProject().removeApplication(currentApplication);
-                // Continue with creating a new application
-            } else {
-                // For other statuses (PENDING, SUCCESSFUL, BOOKED), don't allow new application
-                return false;
+        // The applicant's lock keeps two sessions from replacing the same current application
+        StripedLocks.Held applicantHeld = applicantLocks.lock(applicant.getNric());
+        try {
+            BTOApplication currentApplication = applicant.getCurrentApplication();
+            String currentProject = currentApplication != null ? currentApplication.getProject().getProjectName() : null;
+            
+            StripedLocks.Held projectsHeld = ProjectManager.lockProjects(currentProject, project.getProjectName());
+            try {
+                // If applicant has a current application...
+                if (currentApplication != null) {
+                    // Allow creating a new application if the current one is UNSUCCESSFUL or WITHDRAWN
+                    if (currentApplication.getStatus() == ApplicationStatus.UNSUCCESSFUL || 
+                        currentApplication.getStatus() == ApplicationStatus.WITHDRAWN) {
+                        // Remove the old application before creating a new one
+                        unindex(currentApplication);
+                        currentApplication.getProject().removeApplication(currentApplication);
+                        // Continue with creating a new application
+                    } else {
+                        // For other statuses (PENDING, SUCCESSFUL, BOOKED), don't allow new application
+                        return false;
+                    }
+                }
+
+                BTOApplication application = new BTOApplication(applicant, project, flatType);
+                index(application);
+                applicant.setCurrentApplication(application);
+                project.addApplication(application);
+                persist(application);
+                return true;
+            } finally {
+                projectsHeld.unlock();
             }
+        } finally {
+            applicantHeld.unlock();
         }
-
-        BTOApplication application = new BTOApplication(applicant, project, flatType);
-        applications.add(application);
-        applicant.setCurrentApplication(application);
-        project.addApplication(application);
-        saveApplications();
-        return true;
     }
 
     @Override
     public boolean updateApplicationStatus(BTOApplication application, ApplicationStatus newStatus) {
-        application.setStatus(newStatus);
-        saveApplications();
-        return true;
+        StripedLocks.Held held = lock(application);
+        try {
+            // Moving into or out of BOOKED takes or returns the booked unit
+            boolean wasBooked = application.getStatus() == ApplicationStatus.BOOKED;
+            boolean booking = newStatus == ApplicationStatus.BOOKED;
+            if (booking && !wasBooked && !application.getProject().tryReserveUnit(application.getBookedFlatType())) {
+                return false;
+            }
+            if (wasBooked && !booking) {
+                application.getProject().releaseUnit(application.getBookedFlatType());
+            }
+            changeStatus(application, newStatus);
+            persist(application);
+            return true;
+        } finally {
+            held.unlock();
+        }
     }
 
     @Override
     public boolean requestWithdrawal(BTOApplication application) {
-        application.requestWithdrawal();
-        saveApplications();
-        return true;
+        StripedLocks.Held held = lock(application);
+        try {
+            application.requestWithdrawal();
+            persist(application);
+            return true;
+        } finally {
+            held.unlock();
+        }
     }
 
     @Override
     public boolean approveWithdrawal(BTOApplication application) {
-        if (application.isWithdrawalRequested()) {
+        StripedLocks.Held held = lock(application);
+        try {
+            if (!application.isWithdrawalRequested()) {
+                return false;
+            }
             if (application.getStatus() == ApplicationStatus.BOOKED) {
-                // Use the correct flat type (assigned if available, otherwise selected)
-                FlatType flatTypeToReturn = application.getAssignedFlatType() != null ? 
-                    application.getAssignedFlatType() : application.getSelectedFlatType();
-                
-                // Print information about the unit being returned for debugging
-                System.out.println("\nReturning a unit to the available pool:");
-                System.out.println("Originally selected flat type: " + application.getSelectedFlatType().getDisplayName());
-                System.out.println("Actually assigned flat type: " + 
-                    (application.getAssignedFlatType() != null ? 
-                    application.getAssignedFlatType().getDisplayName() : "None (using original)"));
-                System.out.println("Returning flat type: " + flatTypeToReturn.getDisplayName());
-                
-                // Show remaining units before the update
-                Map<FlatType, Integer> remainingBefore = application.getProject().getRemainingUnits();
-                System.out.println("Remaining units before return: " + remainingBefore.get(flatTypeToReturn));
-                
-                // When a booked unit is returned, we need to decrease the booked count
-                // Since updateRemainingUnits subtracts the booked parameter from remaining units,
-                // we need to use a negative value to add units back
-                application.getProject().updateRemainingUnits(flatTypeToReturn, -1);
-                
-                // Show remaining units after the update
-                Map<FlatType, Integer> remainingAfter = application.getProject().getRemainingUnits();
-                System.out.println("Remaining units after return: " + remainingAfter.get(flatTypeToReturn));
-                System.out.println("Unit successfully returned to the pool.\n");
+                // Give the booked unit back to the pool (assigned if available, otherwise selected)
+                application.getProject().releaseUnit(application.getBookedFlatType());
             }
             
             // Mark application as withdrawn instead of removing it
-            application.setStatus(ApplicationStatus.WITHDRAWN);
+            changeStatus(application, ApplicationStatus.WITHDRAWN);
             application.resetWithdrawalRequest(); // Clear the withdrawal request flag
             
             // The applicant's currentApplication remains set, but is now WITHDRAWN status
             // This allows them to see it as withdrawn, but they can still apply for a new project
             
-            saveApplications();
-            ProjectManager.getInstance().saveProjects(); // Ensure projects are saved with updated unit counts
+            persist(application);
+            ProjectManager.getInstance().saveProject(application.getProject()); // Ensure the project is saved with updated unit counts
             return true;
+        } finally {
+            held.unlock();
         }
-        return false;
     }
 
     @Override
     public boolean rejectWithdrawal(BTOApplication application) {
-        if (application.isWithdrawalRequested()) {
-            // Just reset the withdrawal request flag without removing the application
-            application.resetWithdrawalRequest();
-            saveApplications();
-            return true;
+        StripedLocks.Held held = lock(application);
+        try {
+            if (application.isWithdrawalRequested()) {
+                // Just reset the withdrawal request flag without removing the application
+                application.resetWithdrawalRequest();
+                persist(application);
+                return true;
+            }
+            return false;
+        } finally {
+            held.unlock();
         }
-        return false;
     }
 
     @Override
@@ -194,31 +432,36 @@ public class ApplicationManager implements IApplicationManager {
             return false;
         }
         
-        // Check if there are enough units of this flat type
-        Map<FlatType, Integer> remainingUnits = project.getRemainingUnits();
-        if (!remainingUnits.containsKey(selectedFlatType) || remainingUnits.get(selectedFlatType) <= 0) {
+        // Once a flat type is sold out, bookings fail without taking the project lock
+        if (project.getUnbookedUnits(selectedFlatType) == 0) {
             return false;
         }
         
-        // Set the assigned flat type instead of changing the original selected type
-        application.setAssignedFlatType(selectedFlatType);
-        
-        // Debug information to verify assigned flat type is set
-        System.out.println("\nFlat booking details:");
-        System.out.println("Originally selected flat type: " + application.getSelectedFlatType());
-        System.out.println("Assigned flat type: " + application.getAssignedFlatType());
-        
-        // Update remaining units count for the selected flat type
-        project.updateRemainingUnits(selectedFlatType, 1);
-        
-        // Update application status to BOOKED
-        application.setStatus(ApplicationStatus.BOOKED);
-        
-        // Save changes
-        saveApplications();
-        ProjectManager.getInstance().saveProjects();
-        
-        return true;
+        StripedLocks.Held held = lock(application);
+        try {
+            // Another session may have booked or rejected the application meanwhile
+            if (application.getStatus() != ApplicationStatus.SUCCESSFUL) {
+                return false;
+            }
+            // Units are only taken and returned under the project lock, so a recount never misses one
+            if (!project.tryReserveUnit(selectedFlatType)) {
+                return false;
+            }
+            
+            // Set the assigned flat type instead of changing the original selected type
+            application.setAssignedFlatType(selectedFlatType);
+            
+            // Update application status to BOOKED
+            changeStatus(application, ApplicationStatus.BOOKED);
+            
+            // Save changes
+            persist(application);
+            ProjectManager.getInstance().saveProject(project);
+            
+            return true;
+        } finally {
+            held.unlock();
+        }
     }
 
     @Override
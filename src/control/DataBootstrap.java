@@ -0,0 +1,72 @@
+package control;
+
+import entity.User;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Loads every store at startup in dependency order, overlapping as much work as possible.
+ * All four files are parsed concurrently into intermediate records. References are then
+ * linked in dependency order: users first, then projects (which reference managers and
+ * officers), then applications and enquiries in parallel since neither depends on the other.
+ * Must run before the first call to any manager's getInstance().
+ */
+public class DataBootstrap {
+
+    /**
+     * Runs the bootstrap and installs all four manager singletons
+     * @return Elapsed milliseconds for each phase, in the order the phases finished
+     */
+    public static Map<String, Long> run() {
+        Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "btoms-bootstrap");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Future<List<User>> users = pool.submit(timed("parse users", UserManager::parseUsers, timings));
+            Future<List<ProjectManager.ProjectRecord>> projects =
+                pool.submit(timed("parse projects", ProjectManager::parseProjects, timings));
+            Future<List<ApplicationManager.ApplicationRecord>> applications =
+                pool.submit(timed("parse applications", ApplicationManager::parseApplications, timings));
+            Future<List<EnquiryManager.EnquiryRecord>> enquiries =
+                pool.submit(timed("parse enquiries", EnquiryManager::parseEnquiries, timings));
+
+            List<User> parsedUsers = users.get();
+            timed("link users", () -> UserManager.bootstrap(parsedUsers), timings).call();
+            List<ProjectManager.ProjectRecord> parsedProjects = projects.get();
+            timed("link projects", () -> ProjectManager.bootstrap(parsedProjects), timings).call();
+
+            // Applications and enquiries only need users and projects, so they link side by side
+            List<ApplicationManager.ApplicationRecord> parsedApplications = applications.get();
+            List<EnquiryManager.EnquiryRecord> parsedEnquiries = enquiries.get();
+            Future<ApplicationManager> linkedApplications = pool.submit(
+                timed("link applications", () -> ApplicationManager.bootstrap(parsedApplications), timings));
+            Future<EnquiryManager> linkedEnquiries = pool.submit(
+                timed("link enquiries", () -> EnquiryManager.bootstrap(parsedEnquiries), timings));
+            linkedApplications.get();
+            linkedEnquiries.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error loading data", e.getCause());
+        } catch (Exception e) {
+            throw new RuntimeException("Error loading data", e);
+        } finally {
+            pool.shutdown();
+        }
+
+        timings.put("total", (System.nanoTime() - start) / 1_000_000);
+        return timings;
+    }
+
+    private static <T> Callable<T> timed(String phase, Callable<T> task, Map<String, Long> timings) {
+        return () -> {
+            long phaseStart = System.nanoTime();
+            T result = task.call();
+            timings.put(phase, (System.nanoTime() - phaseStart) / 1_000_000);
+            return result;
+        };
+    }
+}
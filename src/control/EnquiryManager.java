@@ -2,143 +2,327 @@ package control;
 
 import entity.*;
 import interfaces.*;
+import util.StripedLocks;
+import util.TextSearchIndex;
 import java.util.*;
-import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Safe to share between sessions. Each project's enquiry indexes are guarded by the
+ * project's lock (see ProjectManager.lockProjects), and each creator's list by itself.
+ * Enquiries also get a sequence number so the store is saved in creation order without
+ * a lock shared by all projects.
+ */
 public class EnquiryManager implements IEnquiryManager {
-    private static EnquiryManager instance;
-    private List<Enquiry> enquiries;
+    private static volatile EnquiryManager instance;
+    private Map<String, Long> sequencesById;
+    private NavigableMap<Long, Enquiry> enquiries; // Keyed by sequence number, i.e. in insertion order
+    private final AtomicLong nextSequence;
+    // Per-project indexes; only touched under the project's lock
+    private Map<String, Set<Enquiry>> enquiriesByProject;
+    private Map<String, Set<Enquiry>> enquiriesByCreator;
+    private Map<String, Set<Enquiry>> unrepliedByProject;
+    private Map<String, TextSearchIndex<Enquiry>> textByProject;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * An enquiry as read from disk, before its creator and project are linked
+     */
+    record EnquiryRecord(String id, String creatorNric, String projectName, String content, String reply) {
+    }
+
     private EnquiryManager() {
-        enquiries = new ArrayList<>();
-        loadEnquiries();
+        sequencesById = new ConcurrentHashMap<>();
+        enquiries = new ConcurrentSkipListMap<>();
+        nextSequence = new AtomicLong();
+        enquiriesByProject = new ConcurrentHashMap<>();
+        enquiriesByCreator = new ConcurrentHashMap<>();
+        unrepliedByProject = new ConcurrentHashMap<>();
+        textByProject = new ConcurrentHashMap<>();
+        PersistenceCoordinator.getInstance().register("enquiries", this::saveEnquiries);
     }
 
     public static EnquiryManager getInstance() {
-        if (instance == null) {
-            instance = new EnquiryManager();
-        }
-        return instance;
-    }
-
-    private void loadEnquiries() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("database/enquiries.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                String id = parts[0];
-                User creator = UserManager.getInstance().getUser(parts[1]);
-                BTOProject project = ProjectManager.getInstance().getProject(parts[2]);
-                String content = parts[3];
-                
-                Enquiry enquiry = new Enquiry(id, creator, project, content);
-                
-                if (parts.length > 4 && !parts[4].isEmpty()) {
-                    enquiry.addReply(parts[4]);
+        EnquiryManager current = instance;
+        if (current == null) {
+            synchronized (EnquiryManager.class) {
+                if (instance == null) {
+                    bootstrap(parseEnquiries());
                 }
-                
-                enquiries.add(enquiry);
-                project.addEnquiry(enquiry);
+                current = instance;
             }
-        } catch (IOException e) {
-            System.err.println("Error loading enquiries: " + e.getMessage());
+        }
+        return current;
+    }
+
+    /**
+     * Creates the singleton from parsed records and links them to their creators and
+     * projects. Used by DataBootstrap once users and projects are loaded.
+     * @param records The parsed enquiries in file order
+     * @return The installed instance
+     */
+    static EnquiryManager bootstrap(List<EnquiryRecord> records) {
+        EnquiryManager manager = new EnquiryManager();
+        for (EnquiryRecord record : records) {
+            manager.linkEnquiry(record);
+        }
+        instance = manager;
+        return manager;
+    }
+
+    /**
+     * Parses the enquiries store without resolving any user or project references
+     * @return The parsed enquiries in file order
+     */
+    static List<EnquiryRecord> parseEnquiries() {
+        List<EnquiryRecord> records = new ArrayList<>();
+        String[] projectName = {null};
+        StorageBackends.get().load("enquiries", fields -> {
+            projectName[0] = fields.getString(2, projectName[0]);
+            records.add(new EnquiryRecord(fields.getString(0), fields.getString(1), projectName[0],
+                fields.getString(3), fields.isEmpty(4) ? null : fields.getString(4)));
+        });
+        return records;
+    }
+
+    private void linkEnquiry(EnquiryRecord record) {
+        User creator = UserManager.getInstance().getUser(record.creatorNric());
+        BTOProject project = ProjectManager.getInstance().getProject(record.projectName());
+        Enquiry enquiry = new Enquiry(record.id(), creator, project, record.content());
+        
+        if (record.reply() != null) {
+            enquiry.addReply(record.reply());
+        }
+        
+        index(enquiry);
+        project.addEnquiry(enquiry);
+    }
+
+    /**
+     * Adds an enquiry to the id, project, creator and unreplied indexes. Needs the project's lock.
+     */
+    private void index(Enquiry enquiry) {
+        Enquiry previous = getEnquiry(enquiry.getId());
+        if (previous != null) {
+            unindex(previous); // A later record with the same id replaces the earlier one
+        }
+        long sequence = nextSequence.getAndIncrement();
+        enquiries.put(sequence, enquiry);
+        sequencesById.put(enquiry.getId(), sequence);
+        String projectName = enquiry.getProject().getProjectName();
+        enquiriesByProject.computeIfAbsent(projectName, name -> new LinkedHashSet<>()).add(enquiry);
+        Set<Enquiry> created = enquiriesByCreator.computeIfAbsent(enquiry.getCreator().getNric(), nric -> new LinkedHashSet<>());
+        synchronized (created) {
+            created.add(enquiry);
+        }
+        if (!enquiry.hasReply()) {
+            unrepliedByProject.computeIfAbsent(projectName, name -> new LinkedHashSet<>()).add(enquiry);
+        }
+        indexText(enquiry);
+    }
+
+    /**
+     * Indexes an enquiry's question and reply for searching, replacing its previous text
+     */
+    private void indexText(Enquiry enquiry) {
+        textByProject.computeIfAbsent(enquiry.getProject().getProjectName(), name -> new TextSearchIndex<>())
+            .put(enquiry, enquiry.getContent(), enquiry.getReply());
+    }
+
+    /**
+     * Removes an enquiry from every index. Needs the project's lock.
+     */
+    private void unindex(Enquiry enquiry) {
+        String projectName = enquiry.getProject().getProjectName();
+        Long sequence = sequencesById.get(enquiry.getId());
+        if (sequence != null && enquiries.remove(sequence, enquiry)) {
+            sequencesById.remove(enquiry.getId(), sequence);
+        }
+        enquiriesByProject.get(projectName).remove(enquiry);
+        Set<Enquiry> created = enquiriesByCreator.get(enquiry.getCreator().getNric());
+        synchronized (created) {
+            created.remove(enquiry);
+        }
+        textByProject.get(projectName).remove(enquiry);
+        removeUnreplied(enquiry);
+    }
+
+    private void removeUnreplied(Enquiry enquiry) {
+        Set<Enquiry> unreplied = unrepliedByProject.get(enquiry.getProject().getProjectName());
+        if (unreplied != null) {
+            unreplied.remove(enquiry);
+        }
+    }
+
+    /**
+     * Records a reply and takes the enquiry out of its project's unreplied index.
+     * Needs the project's lock.
+     */
+    private void reply(Enquiry enquiry, String reply) {
+        enquiry.addReply(reply);
+        removeUnreplied(enquiry);
+        indexText(enquiry);
+    }
+
+    private static List<Enquiry> copyOf(Set<Enquiry> indexed) {
+        return indexed != null ? new ArrayList<>(indexed) : new ArrayList<>();
+    }
+
+    /**
+     * Copies one of a project's indexes under the project's lock
+     */
+    private static List<Enquiry> copyOf(Map<String, Set<Enquiry>> index, String projectName) {
+        StripedLocks.Held held = ProjectManager.lockProjects(projectName);
+        try {
+            return copyOf(index.get(projectName));
+        } finally {
+            held.unlock();
         }
     }
 
+    private static StripedLocks.Held lock(Enquiry enquiry) {
+        return ProjectManager.lockProjects(enquiry.getProject().getProjectName());
+    }
+
     @Override
     public void saveEnquiries() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("database/enquiries.txt"))) {
-            for (Enquiry enquiry : enquiries) {
-                writer.println(String.format("%s|%s|%s|%s|%s",
-                    enquiry.getId(),
-                    enquiry.getCreator().getNric(),
-                    enquiry.getProject().getProjectName(),
-                    enquiry.getContent(),
-                    enquiry.getReply() != null ? enquiry.getReply() : ""));
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving enquiries: " + e.getMessage());
+        // Runs as the store's flusher, so it reads the enquiries without taking project locks
+        List<String[]> records = new ArrayList<>(enquiries.size());
+        for (Enquiry enquiry : enquiries.values()) {
+            records.add(toFields(enquiry));
         }
+        StorageBackends.get().replaceAll("enquiries", records);
+    }
+
+    private String[] toFields(Enquiry enquiry) {
+        return new String[] {
+            enquiry.getId(),
+            enquiry.getCreator().getNric(),
+            enquiry.getProject().getProjectName(),
+            enquiry.getContent(),
+            enquiry.getReply() != null ? enquiry.getReply() : ""
+        };
     }
 
     @Override
     public List<Enquiry> getEnquiriesForProject(String projectName) {
-        List<Enquiry> projectEnquiries = new ArrayList<>();
-        for (Enquiry enquiry : enquiries) {
-            if (enquiry.getProject().getProjectName().equals(projectName)) {
-                projectEnquiries.add(enquiry);
-            }
+        return copyOf(enquiriesByProject, projectName);
+    }
+
+    @Override
+    public List<Enquiry> getUnrepliedEnquiriesForProject(String projectName) {
+        return copyOf(unrepliedByProject, projectName);
+    }
+
+    @Override
+    public List<Enquiry> searchEnquiries(String projectName, String query, int limit) {
+        // Searching reuses the index's scratch arrays, so it needs the lock like a change does
+        StripedLocks.Held held = ProjectManager.lockProjects(projectName);
+        try {
+            TextSearchIndex<Enquiry> index = textByProject.get(projectName);
+            return index != null ? index.search(query, limit) : new ArrayList<>();
+        } finally {
+            held.unlock();
         }
-        return projectEnquiries;
     }
 
     @Override
     public List<Enquiry> getEnquiriesForUser(String nric) {
-        List<Enquiry> userEnquiries = new ArrayList<>();
-        for (Enquiry enquiry : enquiries) {
-            if (enquiry.getCreator().getNric().equals(nric)) {
-                userEnquiries.add(enquiry);
-            }
+        Set<Enquiry> created = enquiriesByCreator.get(nric);
+        if (created == null) {
+            return new ArrayList<>();
+        }
+        synchronized (created) {
+            return copyOf(created);
         }
-        return userEnquiries;
     }
 
     @Override
     public Enquiry getEnquiry(String id) {
-        for (Enquiry enquiry : enquiries) {
-            if (enquiry.getId().equals(id)) {
-                return enquiry;
-            }
-        }
-        return null;
+        Long sequence = id != null ? sequencesById.get(id) : null;
+        return sequence != null ? enquiries.get(sequence) : null;
     }
 
     @Override
     public Enquiry createEnquiry(User creator, BTOProject project, String content) {
-        String id = UUID.randomUUID().toString().substring(0, 8);
-        Enquiry enquiry = new Enquiry(id, creator, project, content);
-        enquiries.add(enquiry);
-        project.addEnquiry(enquiry);
-        saveEnquiries();
+        Enquiry enquiry;
+        StripedLocks.Held held = ProjectManager.lockProjects(project.getProjectName());
+        try {
+            String id;
+            do {
+                id = UUID.randomUUID().toString().substring(0, 8);
+            } while (sequencesById.putIfAbsent(id, -1L) != null); // Reserve the id against other projects
+            enquiry = new Enquiry(id, creator, project, content);
+            index(enquiry);
+            project.addEnquiry(enquiry);
+        } finally {
+            held.unlock();
+        }
+        PersistenceCoordinator.getInstance().markDirty("enquiries");
         return enquiry;
     }
 
     @Override
     public boolean updateEnquiry(String id, String content, User user) {
         Enquiry enquiry = getEnquiry(id);
-        if (enquiry != null && enquiry.canEdit(user)) {
+        if (enquiry == null) {
+            return false;
+        }
+        StripedLocks.Held held = lock(enquiry);
+        try {
+            if (getEnquiry(id) != enquiry || !enquiry.canEdit(user)) {
+                return false;
+            }
             enquiry.setContent(content);
-            saveEnquiries();
-            return true;
+            indexText(enquiry);
+        } finally {
+            held.unlock();
         }
-        return false;
+        PersistenceCoordinator.getInstance().markDirty("enquiries");
+        return true;
     }
 
     @Override
     public boolean deleteEnquiry(String id, User user) {
         Enquiry enquiry = getEnquiry(id);
-        if (enquiry != null && enquiry.canEdit(user) && !enquiry.hasReply()) {
-            enquiries.remove(enquiry);
-            saveEnquiries();
-            return true;
+        if (enquiry == null) {
+            return false;
         }
-        return false;
+        StripedLocks.Held held = lock(enquiry);
+        try {
+            if (getEnquiry(id) != enquiry || !enquiry.canEdit(user) || enquiry.hasReply()) {
+                return false;
+            }
+            unindex(enquiry);
+        } finally {
+            held.unlock();
+        }
+        PersistenceCoordinator.getInstance().markDirty("enquiries");
+        return true;
     }
 
     @Override
     public boolean addReply(String id, String reply, User user) {
         Enquiry enquiry = getEnquiry(id);
-        if (enquiry != null && 
-            (user instanceof HDBOfficer || user instanceof HDBManager) &&
-            !enquiry.hasReply()) {
-            enquiry.addReply(reply);
-            saveEnquiries();
-            return true;
+        if (enquiry == null || !(user instanceof HDBOfficer || user instanceof HDBManager)) {
+            return false;
         }
-        return false;
+        // Checked again under the lock so that only one of several officers replying at once succeeds
+        StripedLocks.Held held = lock(enquiry);
+        try {
+            if (enquiry.hasReply()) {
+                return false;
+            }
+            reply(enquiry, reply);
+        } finally {
+            held.unlock();
+        }
+        PersistenceCoordinator.getInstance().markDirty("enquiries");
+        return true;
     }
 
     /**
@@ -153,15 +337,16 @@ public class EnquiryManager implements IEnquiryManager {
 
     @Override
     public boolean replyToEnquiry(String enquiryId, String reply, HDBManager manager) {
-        for (Enquiry enquiry : enquiries) {
-            if (enquiry.getId().equals(enquiryId)) {
-                if (manager.getManagedProjects().contains(enquiry.getProject())) {
-                    enquiry.addReply(reply); // Changed from setReply to addReply to properly set reply time
-                    saveEnquiries();
-                    return true;
-                }
-                return false;
+        Enquiry enquiry = getEnquiry(enquiryId);
+        if (enquiry != null && manager.managesProject(enquiry.getProject())) {
+            StripedLocks.Held held = lock(enquiry);
+            try {
+                reply(enquiry, reply);
+            } finally {
+                held.unlock();
             }
+            PersistenceCoordinator.getInstance().markDirty("enquiries");
+            return true;
         }
         return false;
     }
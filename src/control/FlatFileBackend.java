@@ -0,0 +1,392 @@
+package control;
+
+import interfaces.IStorageBackend;
+import util.BinarySnapshot;
+import util.ChecksummedFile;
+import util.MappedRecordReader;
+import util.RecordFields;
+import util.RecordTokenizer;
+import java.io.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend over the text files in database/.
+ * Users and enquiries are single files rewritten as a whole. Applications are a text
+ * snapshot plus an append-only journal of changes. Projects live in one slot file each,
+ * so a change rewrites only that project. Every store can also keep a binary snapshot
+ * (-Dbtoms.snapshot.binary=true) that is preferred at startup while it is current.
+ * Text files are written as checksummed generations (see ChecksummedFile), so a crash
+ * mid-write leaves the previous generation to load from.
+ * Writes are serialized, since a whole-store rewrite may run alongside a group commit.
+ */
+public class FlatFileBackend implements IStorageBackend {
+    private static final String DATABASE_DIR = "database/";
+    private static final String PROJECTS_DIR = DATABASE_DIR + "projects";
+    private static final String LEGACY_PROJECTS_FILE = DATABASE_DIR + "projects.txt";
+    private static final String JOURNAL_FILE = DATABASE_DIR + "applications.journal";
+
+    private final boolean journaled;
+    private final ApplicationJournal journal;
+    private final Map<String, Integer> projectSlots;
+    private int nextSlot;
+
+    /**
+     * Layout of a single-file store
+     * @param file The text file
+     * @param delimiter Field delimiter of the text file
+     * @param dictionaryColumns Columns dictionary-coded in the binary snapshot
+     */
+    private record Layout(String file, char delimiter, int... dictionaryColumns) {
+        File textFile() {
+            return new File(DATABASE_DIR + file + ".txt");
+        }
+
+        File snapshotFile() {
+            return new File(DATABASE_DIR + file + ".bin");
+        }
+    }
+
+    private static final Map<String, Layout> LAYOUTS = Map.of(
+        // Marital status and user type repeat across users
+        "users", new Layout("users", ',', 3, 4),
+        // Neighborhoods and managers repeat across projects (offset by the slot column)
+        "projects", new Layout("projects", '|', 2, 6),
+        // Project names and enum values repeat across applications
+        "applications", new Layout("applications", '|', 1, 2, 3, 4, 5),
+        // Creators and projects repeat across enquiries
+        "enquiries", new Layout("enquiries", '|', 1, 2));
+
+    public FlatFileBackend() {
+        // Journaled mode is on unless -Dbtoms.journal=false is given
+        journaled = Boolean.parseBoolean(System.getProperty("btoms.journal", "true"));
+        journal = new ApplicationJournal(JOURNAL_FILE,
+            Integer.getInteger("btoms.journal.compactThreshold", 1000),
+            Long.getLong("btoms.journal.compactIntervalMs", 10 * 60 * 1000L));
+        projectSlots = new HashMap<>();
+        nextSlot = 1;
+    }
+
+    @Override
+    public void load(String store, Consumer<RecordFields> consumer) {
+        if (store.equals("projects")) {
+            loadProjects(consumer);
+            return;
+        }
+
+        loadFile(layout(store), consumer);
+        if (store.equals("applications")) {
+            // Replay mutations recorded since the last snapshot
+            RecordTokenizer fields = new RecordTokenizer('|');
+            journal.replay(line -> consumer.accept(fields.reset(line)));
+
+            // Fold the journal into the snapshot when it has grown too long. This is done even
+            // when journaling is switched off so that no journaled change is ever dropped.
+            if (journal.needsCompaction() || (!journaled && journal.getRecordCount() > 0)) {
+                compactApplications();
+            }
+        }
+    }
+
+    /**
+     * Streams a single-file store, preferring its binary snapshot when it matches the text file
+     */
+    private void loadFile(Layout layout, Consumer<RecordFields> consumer) {
+        File textFile = layout.textFile();
+        RecordTokenizer fields = new RecordTokenizer(layout.delimiter());
+        if (BinarySnapshot.read(layout.snapshotFile(), BinarySnapshot.fingerprint(textFile),
+                parts -> consumer.accept(fields.reset(parts)))) {
+            return;
+        }
+
+        ChecksummedFile.Verified verified = ChecksummedFile.verify(textFile);
+        if (verified == null) {
+            System.err.println("Error loading " + layout.file() + ": " + textFile.getPath() + " not found");
+            return;
+        }
+
+        // Tokenize the mapped file in place; only the fields a loader keeps become Strings
+        try (MappedRecordReader reader = new MappedRecordReader(verified.file(), layout.delimiter(), verified.length())) {
+            while (reader.nextRecord()) {
+                consumer.accept(reader);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading " + layout.file() + ": " + e.getMessage());
+        }
+    }
+
+    private void loadProjects(Consumer<RecordFields> consumer) {
+        RecordTokenizer fields = new RecordTokenizer('|');
+        File[] slotFiles = listSlotFiles();
+        if (slotFiles.length == 0) {
+            migrateLegacyProjects();
+            slotFiles = listSlotFiles();
+        }
+
+        // Prefer the binary snapshot when it matches the current slot files
+        Layout layout = layout("projects");
+        if (BinarySnapshot.read(layout.snapshotFile(), BinarySnapshot.fingerprint(slotFiles), parts -> {
+                trackSlot(parts[1], RecordTokenizer.parseInt(parts[0], 0, parts[0].length()));
+                consumer.accept(fields.reset(parts, 1));
+            })) {
+            return;
+        }
+
+        // Slot numbers preserve the order in which projects were created
+        Arrays.sort(slotFiles, Comparator.comparingInt(FlatFileBackend::slotOf));
+        for (File slotFile : slotFiles) {
+            ChecksummedFile.Verified verified = ChecksummedFile.verify(slotFile);
+            if (verified == null) {
+                continue;
+            }
+            try (BufferedReader reader = new BufferedReader(new FileReader(verified.file()))) {
+                String line = reader.readLine();
+                if (line != null && !line.isEmpty() && verified.length() > 0) {
+                    fields.reset(line);
+                    trackSlot(fields.getString(0), slotOf(slotFile));
+                    consumer.accept(fields);
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading project " + slotFile.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void trackSlot(String projectName, int slot) {
+        projectSlots.put(projectName, slot);
+        nextSlot = Math.max(nextSlot, slot + 1);
+    }
+
+    /**
+     * Moves the single-file projects.txt layout used before per-project slots into
+     * one slot file per project, keeping each line as it was
+     */
+    private void migrateLegacyProjects() {
+        File legacyFile = new File(LEGACY_PROJECTS_FILE);
+        if (!legacyFile.exists()) {
+            return;
+        }
+
+        new File(PROJECTS_DIR).mkdirs();
+        try (BufferedReader reader = new BufferedReader(new FileReader(legacyFile))) {
+            String line;
+            int slot = 1;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    writeLine(slotFile(slot++), line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error migrating projects: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void write(String store, List<String[]> upserts, List<String> deletedKeys) {
+        if (store.equals("projects")) {
+            writeProjects(upserts, deletedKeys);
+        } else if (store.equals("applications") && journaled && deletedKeys.isEmpty()) {
+            List<String> records = new ArrayList<>(upserts.size());
+            for (String[] upsert : upserts) {
+                records.add(String.join("|", upsert));
+            }
+            journal.appendAll(records);
+            if (journal.needsCompaction()) {
+                compactApplications();
+            }
+        } else {
+            // A single file has no room for a partial update: apply the batch to what is stored and rewrite it
+            Map<String, String[]> records = readAll(store);
+            for (String key : deletedKeys) {
+                records.remove(key);
+            }
+            for (String[] upsert : upserts) {
+                records.put(upsert[0], upsert);
+            }
+            replaceAll(store, new ArrayList<>(records.values()));
+        }
+    }
+
+    /**
+     * Projects and journaled applications take batches directly; a batch for any other
+     * store reads the whole file back before rewriting it
+     */
+    @Override
+    public boolean writesIncrementally(String store) {
+        return store.equals("projects") || (store.equals("applications") && journaled);
+    }
+
+    /**
+     * Writes only the projects in the batch and deletes the slot files of removed ones
+     */
+    private void writeProjects(List<String[]> upserts, List<String> deletedKeys) {
+        new File(PROJECTS_DIR).mkdirs();
+        for (String[] upsert : upserts) {
+            Integer slot = projectSlots.get(upsert[0]);
+            if (slot == null) {
+                slot = nextSlot++;
+                projectSlots.put(upsert[0], slot);
+            }
+            writeLine(slotFile(slot), String.join("|", upsert));
+        }
+        for (String key : deletedKeys) {
+            Integer slot = projectSlots.remove(key);
+            if (slot != null) {
+                slotFile(slot).delete();
+                ChecksummedFile.previousGeneration(slotFile(slot)).delete();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the applications snapshot from the current snapshot and journal
+     */
+    private synchronized void compactApplications() {
+        replaceAll("applications", new ArrayList<>(readAll("applications").values()));
+    }
+
+    /**
+     * Reads a whole store into memory, keyed by each record's first column.
+     * A later record with the same key replaces the earlier one.
+     */
+    private Map<String, String[]> readAll(String store) {
+        Map<String, String[]> records = new LinkedHashMap<>();
+        Consumer<RecordFields> collector = fields -> {
+            String[] record = new String[fields.getFieldCount()];
+            for (int i = 0; i < record.length; i++) {
+                record[i] = fields.getString(i);
+            }
+            records.put(record[0], record);
+        };
+        if (store.equals("projects")) {
+            loadProjects(collector);
+        } else {
+            loadFile(layout(store), collector);
+            if (store.equals("applications")) {
+                RecordTokenizer fields = new RecordTokenizer('|');
+                new ApplicationJournal(JOURNAL_FILE, Integer.MAX_VALUE, Long.MAX_VALUE)
+                    .replay(line -> collector.accept(fields.reset(line)));
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void replaceAll(String store, List<String[]> records) {
+        if (store.equals("projects")) {
+            replaceProjects(records);
+            return;
+        }
+
+        Layout layout = layout(store);
+        String delimiter = String.valueOf(layout.delimiter());
+        try (ChecksummedFile.Writer writer = new ChecksummedFile.Writer(layout.textFile())) {
+            for (String[] record : records) {
+                writer.println(String.join(delimiter, record));
+            }
+            writer.commit();
+        } catch (IOException e) {
+            System.err.println("Error saving " + store + ": " + e.getMessage());
+            return;
+        }
+
+        if (BinarySnapshot.isEnabled()) {
+            writeSnapshot(layout, BinarySnapshot.fingerprint(layout.textFile()), records);
+        }
+
+        if (store.equals("applications") && journal.getRecordCount() > 0) {
+            // The snapshot now holds every journaled change
+            journal.truncate();
+        }
+    }
+
+    private void replaceProjects(List<String[]> records) {
+        Set<String> kept = new HashSet<>();
+        for (String[] record : records) {
+            kept.add(record[0]);
+        }
+        List<String> removed = new ArrayList<>();
+        for (String projectName : projectSlots.keySet()) {
+            if (!kept.contains(projectName)) {
+                removed.add(projectName);
+            }
+        }
+        writeProjects(records, removed);
+
+        if (BinarySnapshot.isEnabled()) {
+            // Each record is prefixed with its slot number so the slot layout survives a round trip
+            List<String[]> slotted = new ArrayList<>(records.size());
+            for (String[] record : records) {
+                String[] slottedRecord = new String[record.length + 1];
+                slottedRecord[0] = String.valueOf(projectSlots.get(record[0]));
+                System.arraycopy(record, 0, slottedRecord, 1, record.length);
+                slotted.add(slottedRecord);
+            }
+            slotted.sort(Comparator.comparingInt(record -> Integer.parseInt(record[0])));
+            writeSnapshot(layout("projects"), BinarySnapshot.fingerprint(listSlotFiles()), slotted);
+        }
+    }
+
+    private void writeSnapshot(Layout layout, String fingerprint, List<String[]> records) {
+        try (BinarySnapshot.Writer writer = new BinarySnapshot.Writer(layout.snapshotFile(), fingerprint,
+                layout.delimiter(), layout.dictionaryColumns())) {
+            for (String[] record : records) {
+                writer.write(record);
+            }
+            writer.commit();
+        } catch (IOException e) {
+            System.err.println("Error saving " + layout.file() + " snapshot: " + e.getMessage());
+        }
+    }
+
+    private static Layout layout(String store) {
+        Layout layout = LAYOUTS.get(store);
+        if (layout == null) {
+            throw new IllegalArgumentException("Unknown store: " + store);
+        }
+        return layout;
+    }
+
+    private static void writeLine(File file, String line) {
+        try (ChecksummedFile.Writer writer = new ChecksummedFile.Writer(file)) {
+            writer.println(line);
+            writer.commit();
+        } catch (IOException e) {
+            System.err.println("Error saving " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the live file of every slot, including a slot whose live file is missing
+     * because a crash interrupted its rename and only the previous generation is left
+     */
+    private static File[] listSlotFiles() {
+        String[] names = new File(PROJECTS_DIR).list((dir, name) -> name.endsWith(".txt") || name.endsWith(".txt.prev"));
+        if (names == null) {
+            return new File[0];
+        }
+        Set<String> slots = new TreeSet<>();
+        for (String name : names) {
+            slots.add(name.endsWith(".prev") ? name.substring(0, name.length() - ".prev".length()) : name);
+        }
+        File[] slotFiles = new File[slots.size()];
+        int i = 0;
+        for (String name : slots) {
+            slotFiles[i++] = new File(PROJECTS_DIR, name);
+        }
+        return slotFiles;
+    }
+
+    private static int slotOf(File slotFile) {
+        String name = slotFile.getName();
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - ".txt".length()));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static File slotFile(int slot) {
+        return new File(PROJECTS_DIR, String.format("%08d.txt", slot));
+    }
+}
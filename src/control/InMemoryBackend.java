@@ -0,0 +1,78 @@
+package control;
+
+import interfaces.IStorageBackend;
+import util.RecordFields;
+import util.RecordTokenizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend that keeps every store in memory and never touches the disk.
+ * Writes cost only a map update, which makes it suited to load tests where the
+ * throughput of the managers matters and durability does not.
+ */
+public class InMemoryBackend implements IStorageBackend {
+    private final Map<String, Map<String, String[]>> stores;
+    private final IStorageBackend seed;
+
+    /**
+     * Creates an in-memory backend
+     * @param seed Backend to copy each store from the first time it is loaded, or null to start empty
+     */
+    public InMemoryBackend(IStorageBackend seed) {
+        this.stores = new ConcurrentHashMap<>();
+        this.seed = seed;
+    }
+
+    private Map<String, String[]> store(String store) {
+        return stores.computeIfAbsent(store, name -> {
+            Map<String, String[]> records = new LinkedHashMap<>();
+            if (seed != null) {
+                seed.load(name, fields -> {
+                    String[] record = new String[fields.getFieldCount()];
+                    for (int i = 0; i < record.length; i++) {
+                        record[i] = fields.getString(i);
+                    }
+                    records.put(record[0], record);
+                });
+            }
+            return records;
+        });
+    }
+
+    @Override
+    public void load(String store, Consumer<RecordFields> consumer) {
+        Map<String, String[]> records = store(store);
+        RecordTokenizer fields = new RecordTokenizer('|');
+        synchronized (records) {
+            for (String[] record : records.values()) {
+                consumer.accept(fields.reset(record));
+            }
+        }
+    }
+
+    @Override
+    public void write(String store, List<String[]> upserts, List<String> deletedKeys) {
+        Map<String, String[]> records = store(store);
+        synchronized (records) {
+            for (String[] upsert : upserts) {
+                records.put(upsert[0], upsert);
+            }
+            for (String key : deletedKeys) {
+                records.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void replaceAll(String store, List<String[]> records) {
+        Map<String, String[]> contents = store(store);
+        synchronized (contents) {
+            contents.clear();
+            for (String[] record : records) {
+                contents.put(record[0], record);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package control;
+
+import interfaces.IStorageBackend;
+import util.RecordFields;
+import util.RecordTokenizer;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend over an embedded JDBC database such as H2 or SQLite.
+ * All stores share one table; each row holds a record's store, key, insertion
+ * sequence and fields joined by the ASCII unit separator. Each write is one
+ * transaction, so a group commit becomes a single database commit.
+ * Only portable SQL is used, and the driver just has to be on the classpath.
+ * A store with no rows is imported from the seed backend the first time it is loaded.
+ */
+public class JdbcBackend implements IStorageBackend {
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final String TABLE = "btoms_records";
+
+    private final Connection connection;
+    private final IStorageBackend seed;
+    private final Map<String, Long> nextSeqs;
+
+    /**
+     * Opens the database and creates the records table if it does not exist yet
+     * @param url JDBC URL, e.g. jdbc:h2:./database/btoms
+     * @param user Database user
+     * @param password Database password
+     * @param seed Backend to import empty stores from, or null to start empty
+     */
+    public JdbcBackend(String url, String user, String password, IStorageBackend seed) throws SQLException {
+        this.connection = DriverManager.getConnection(url, user, password);
+        this.seed = seed;
+        this.nextSeqs = new HashMap<>();
+        createTableIfMissing();
+        connection.setAutoCommit(false);
+    }
+
+    private void createTableIfMissing() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT record_key FROM " + TABLE + " WHERE 1 = 0").close();
+        } catch (SQLException missing) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE " + TABLE + " (" +
+                    "record_store VARCHAR(32) NOT NULL, " +
+                    "record_key VARCHAR(255) NOT NULL, " +
+                    "record_seq BIGINT NOT NULL, " +
+                    "record_data VARCHAR(8000) NOT NULL, " +
+                    "PRIMARY KEY (record_store, record_key))");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void load(String store, Consumer<RecordFields> consumer) {
+        if (seed != null && isEmpty(store)) {
+            List<String[]> records = new ArrayList<>();
+            seed.load(store, fields -> {
+                String[] record = new String[fields.getFieldCount()];
+                for (int i = 0; i < record.length; i++) {
+                    record[i] = fields.getString(i);
+                }
+                records.add(record);
+            });
+            replaceAll(store, records);
+        }
+
+        RecordTokenizer fields = new RecordTokenizer(FIELD_SEPARATOR);
+        long maxSeq = 0;
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT record_seq, record_data FROM " + TABLE + " WHERE record_store = ? ORDER BY record_seq")) {
+            query.setString(1, store);
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    maxSeq = Math.max(maxSeq, rows.getLong(1));
+                    consumer.accept(fields.reset(rows.getString(2)));
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            System.err.println("Error loading " + store + ": " + e.getMessage());
+        }
+        nextSeqs.put(store, maxSeq + 1);
+    }
+
+    private boolean isEmpty(String store) {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT COUNT(*) FROM " + TABLE + " WHERE record_store = ?")) {
+            query.setString(1, store);
+            try (ResultSet rows = query.executeQuery()) {
+                return rows.next() && rows.getLong(1) == 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading " + store + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void write(String store, List<String[]> upserts, List<String> deletedKeys) {
+        try (PreparedStatement update = connection.prepareStatement(
+                 "UPDATE " + TABLE + " SET record_data = ? WHERE record_store = ? AND record_key = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO " + TABLE + " (record_store, record_key, record_seq, record_data) VALUES (?, ?, ?, ?)");
+             PreparedStatement delete = connection.prepareStatement(
+                 "DELETE FROM " + TABLE + " WHERE record_store = ? AND record_key = ?")) {
+            for (String[] upsert : upserts) {
+                update.setString(1, encode(upsert));
+                update.setString(2, store);
+                update.setString(3, upsert[0]);
+                if (update.executeUpdate() == 0) {
+                    insert(insert, store, upsert);
+                }
+            }
+            for (String key : deletedKeys) {
+                delete.setString(1, store);
+                delete.setString(2, key);
+                delete.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback(store, e);
+        }
+    }
+
+    @Override
+    public synchronized void replaceAll(String store, List<String[]> records) {
+        try (PreparedStatement clear = connection.prepareStatement("DELETE FROM " + TABLE + " WHERE record_store = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO " + TABLE + " (record_store, record_key, record_seq, record_data) VALUES (?, ?, ?, ?)")) {
+            clear.setString(1, store);
+            clear.executeUpdate();
+            nextSeqs.put(store, 1L);
+            for (String[] record : records) {
+                insert(insert, store, record);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback(store, e);
+        }
+    }
+
+    private void insert(PreparedStatement insert, String store, String[] record) throws SQLException {
+        long seq = nextSeqs.getOrDefault(store, 1L);
+        nextSeqs.put(store, seq + 1);
+        insert.setString(1, store);
+        insert.setString(2, record[0]);
+        insert.setLong(3, seq);
+        insert.setString(4, encode(record));
+        insert.executeUpdate();
+    }
+
+    private void rollback(String store, SQLException cause) {
+        System.err.println("Error saving " + store + ": " + cause.getMessage());
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back " + store + ": " + e.getMessage());
+        }
+    }
+
+    private static String encode(String[] record) {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < record.length; i++) {
+            if (i > 0) encoded.append(FIELD_SEPARATOR);
+            encoded.append(record[i] != null ? record[i] : "");
+        }
+        return encoded.toString();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing JDBC storage: " + e.getMessage());
+        }
+    }
+}
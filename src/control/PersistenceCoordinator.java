@@ -0,0 +1,125 @@
+package control;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Central group-commit scheduler shared by all managers.
+ * Managers mark their store dirty after each mutation instead of saving it straight away;
+ * a background flush thread writes the dirty stores together in one batched commit every
+ * flush interval, or sooner once enough operations have accumulated. Marking a store dirty
+ * never writes on the caller's thread, so no session pays for a batch it happened to fill.
+ * Flushers run while the coordinator is locked and may take project locks one at a time,
+ * so commit() must never be called while holding a project lock.
+ */
+public class PersistenceCoordinator {
+    private static volatile PersistenceCoordinator instance;
+    private final Map<String, Runnable> stores;
+    private final Set<String> dirtyStores;
+    private final int maxPendingOps;
+    private final long flushIntervalMillis;
+    private final AtomicInteger pendingOps;
+    private final AtomicBoolean commitQueued; // An early commit is waiting for the flush thread
+    private final ScheduledExecutorService flusher;
+
+    private PersistenceCoordinator() {
+        stores = new LinkedHashMap<>();
+        dirtyStores = ConcurrentHashMap.newKeySet();
+        maxPendingOps = Math.max(1, Integer.getInteger("btoms.flush.maxOps", 32));
+        flushIntervalMillis = Long.getLong("btoms.flush.intervalMs", 1000L);
+        pendingOps = new AtomicInteger();
+        commitQueued = new AtomicBoolean();
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "btoms-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            if (!dirtyStores.isEmpty()) {
+                commitQuietly();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+        // Make sure nothing marked dirty is lost when the program exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            commit();
+            StorageBackends.get().close();
+        }, "btoms-final-commit"));
+    }
+
+    public static PersistenceCoordinator getInstance() {
+        PersistenceCoordinator current = instance;
+        if (current == null) {
+            synchronized (PersistenceCoordinator.class) {
+                if (instance == null) {
+                    instance = new PersistenceCoordinator();
+                }
+                current = instance;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Registers a store and the action that writes it to disk
+     * @param store Name of the store (e.g. "applications")
+     * @param flusher Writes the store's pending changes
+     */
+    public synchronized void register(String store, Runnable flusher) {
+        stores.put(store, flusher);
+    }
+
+    /**
+     * Records that a store has unsaved changes. It is written by the next scheduled
+     * commit, or by an early one on the flush thread once the operation count is reached.
+     * @param store Name of the store that changed
+     */
+    public void markDirty(String store) {
+        dirtyStores.add(store);
+        if (pendingOps.incrementAndGet() >= maxPendingOps && commitQueued.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                commitQueued.set(false);
+                commitQuietly();
+            });
+        }
+    }
+
+    /**
+     * Commits on the flush thread, where a failure must not stop later commits
+     */
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (RuntimeException e) {
+            System.err.println("Error committing changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every dirty store now and returns once all of them are on disk
+     */
+    public synchronized void commit() {
+        pendingOps.set(0);
+
+        // A store marked dirty again while it is being flushed stays dirty for the next commit
+        for (Map.Entry<String, Runnable> entry : stores.entrySet()) {
+            if (dirtyStores.remove(entry.getKey())) {
+                entry.getValue().run();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a store has changes that are not yet on disk
+     * @param store Name of the store
+     * @return True if the store is waiting for the next commit
+     */
+    public boolean isDirty(String store) {
+        return dirtyStores.contains(store);
+    }
+}
@@ -3,178 +3,382 @@ package control;
 import entity.*;
 import enums.*;
 import interfaces.*;
+import util.RecordFields;
+import util.RecordTokenizer;
+import util.StripedLocks;
+import util.TokenIndex;
 import java.util.*;
-import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 public class ProjectManager implements IProjectManager {
-    private static ProjectManager instance;
-    private List<BTOProject> projects;
+    private static volatile ProjectManager instance;
+    private volatile CatalogSnapshot catalog;
+    private final ReentrantLock catalogWriteLock; // Held while building and publishing the next snapshot
+    private final ReadWriteLock indexLock; // Guards neighborhoodIndex
+    private Map<String, String[]> pendingProjects; // Records of changed projects, taken under their project lock
+    private Set<String> deletedProjects;
+    private TokenIndex<BTOProject> neighborhoodIndex;
+    private Map<String, Map<FlatType, Integer>> savedRemainingUnits; // As loaded, until the applications are linked
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // Guards each project's applications, enquiries, officers and unit counters for every manager
+    private static final StripedLocks projectLocks = new StripedLocks(Integer.getInteger("btoms.lockStripes", 64));
+    private volatile EligibleCache eligibleCache;
+
+    /**
+     * The project catalog at one moment, never changed once published. Writers build the
+     * next snapshot from the current one and publish it with a single volatile write, so
+     * browsing never locks and never sees a half-made change. Every snapshot has a higher
+     * version than the one before, for caches and ETags to key on. Versions start at the
+     * load time in milliseconds, so tags from an earlier run are not reused.
+     * The projects in it are the shared, live entities.
+     * @param version The version
+     * @param projects All projects, in insertion order
+     * @param byName All projects by name
+     * @param visibleProjects The projects that were visible when the snapshot was built
+     */
+    public record CatalogSnapshot(long version, List<BTOProject> projects, Map<String, BTOProject> byName,
+                                  List<BTOProject> visibleProjects) {
+        private static CatalogSnapshot of(long version, Collection<BTOProject> projects) {
+            List<BTOProject> all = List.copyOf(projects);
+            Map<String, BTOProject> byName = new HashMap<>(all.size() * 2);
+            List<BTOProject> visible = new ArrayList<>();
+            for (BTOProject project : all) {
+                byName.put(project.getProjectName(), project);
+                if (project.isVisible()) {
+                    visible.add(project);
+                }
+            }
+            return new CatalogSnapshot(version, all, Collections.unmodifiableMap(byName),
+                Collections.unmodifiableList(visible));
+        }
+    }
+
+    /**
+     * Open, visible projects per eligibility segment, valid for one catalog version and day.
+     * A segment is the set of flat types an applicant may apply for, as a bitmask of FlatType
+     * ordinals; a null entry is not computed yet.
+     */
+    private record EligibleCache(long version, LocalDate date, AtomicReferenceArray<List<BTOProject>> bySegment) {
+    }
+
+    /**
+     * A project as read from disk, before its manager and officers are linked
+     */
+    record ProjectRecord(String projectName, String neighborhood,
+                         Map<FlatType, Integer> flatUnits, LocalDate openDate, LocalDate closeDate,
+                         String managerNric, boolean visible, int maxOfficerSlots,
+                         Map<String, Boolean> officers, boolean autoPublish,
+                         Map<FlatType, Integer> remainingUnits) {
+    }
 
     private ProjectManager() {
-        projects = new ArrayList<>();
-        loadProjects();
+        catalog = CatalogSnapshot.of(System.currentTimeMillis(), List.of());
+        catalogWriteLock = new ReentrantLock();
+        indexLock = new ReentrantReadWriteLock();
+        pendingProjects = new ConcurrentHashMap<>();
+        deletedProjects = ConcurrentHashMap.newKeySet();
+        neighborhoodIndex = new TokenIndex<>();
+        savedRemainingUnits = new HashMap<>();
+        PersistenceCoordinator.getInstance().register("projects", this::flushProjects);
     }
 
     public static ProjectManager getInstance() {
-        if (instance == null) {
-            instance = new ProjectManager();
+        ProjectManager current = instance;
+        if (current == null) {
+            synchronized (ProjectManager.class) {
+                if (instance == null) {
+                    bootstrap(parseProjects());
+                }
+                current = instance;
+            }
         }
-        return instance;
+        return current;
     }
 
-    private void loadProjects() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("database/projects.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                String projectName = parts[0];
-                String neighborhood = parts[1];
-                
-                // Parse flat units
-                Map<FlatType, Integer> flatUnits = new HashMap<>();
-                String[] units = parts[2].split(",");
-                for (String unit : units) {
-                    String[] unitParts = unit.split(":");
-                    flatUnits.put(FlatType.valueOf(unitParts[0]), Integer.parseInt(unitParts[1]));
-                }
-                
-                LocalDate openDate = LocalDate.parse(parts[3], DATE_FORMAT);
-                LocalDate closeDate = LocalDate.parse(parts[4], DATE_FORMAT);
-                HDBManager manager = (HDBManager) UserManager.getInstance().getUser(parts[5]);
-                
-                BTOProject project = new BTOProject(projectName, neighborhood, flatUnits, openDate, closeDate, manager, Integer.parseInt(parts[7]));
-                project.setVisible(Boolean.parseBoolean(parts[6]));
-                
-                // Set autoPublish property if it exists in the file
-                if (parts.length > 9) {
-                    project.setAutoPublish(Boolean.parseBoolean(parts[9]));
-                }
-                
-                // Load officers
-                if (parts.length > 8 && !parts[8].isEmpty()) {
-                    String[] officerIds = parts[8].split(",");
-                    for (String officerId : officerIds) {
-                        String[] officerParts = officerId.split(":");
-                        HDBOfficer officer = (HDBOfficer) UserManager.getInstance().getUser(officerParts[0]);
-                        if (officer != null) {
-                            project.addOfficer(officer);
-                            officer.setAssignedProject(project);
-                            if (officerParts.length > 1) {
-                                officer.setRegistrationApproved(Boolean.parseBoolean(officerParts[1]));
-                            }
-                        }
-                    }
-                }
-                
-                // Load remaining units if present in the file
-                if (parts.length > 10 && !parts[10].isEmpty()) {
-                    Map<FlatType, Integer> remainingUnits = new HashMap<>();
-                    String[] remainingUnitStrings = parts[10].split(",");
-                    for (String unit : remainingUnitStrings) {
-                        String[] unitParts = unit.split(":");
-                        remainingUnits.put(FlatType.valueOf(unitParts[0]), Integer.parseInt(unitParts[1]));
-                    }
-                    // Set the remaining units in the project
-                    project.setRemainingUnits(remainingUnits);
+    /**
+     * Locks projects by name for a change that has to look consistent to other sessions.
+     * Sessions working on projects under different locks never wait for each other.
+     * Reentrant, so a manager already holding a project's lock may call another that takes it.
+     * @param projectNames Names of the projects; null names are skipped
+     * @return The held locks, to release with unlock() in a finally block
+     */
+    static StripedLocks.Held lockProjects(String... projectNames) {
+        return projectLocks.lock((Object[]) projectNames);
+    }
+
+    /**
+     * Creates the singleton from parsed project records and links them to their
+     * managers and officers. Used by DataBootstrap once users are loaded.
+     * @param records The parsed projects in store order
+     * @return The installed instance
+     */
+    static ProjectManager bootstrap(List<ProjectRecord> records) {
+        ProjectManager manager = new ProjectManager();
+        Map<String, BTOProject> linked = new LinkedHashMap<>();
+        for (ProjectRecord record : records) {
+            BTOProject project = manager.linkProject(record);
+            linked.put(project.getProjectName(), project);
+        }
+        manager.catalogWriteLock.lock();
+        try {
+            manager.publish(linked.values());
+        } finally {
+            manager.catalogWriteLock.unlock();
+        }
+        instance = manager;
+        return manager;
+    }
+
+    /**
+     * Parses the projects store without resolving any user references
+     * @return The parsed projects in store order
+     */
+    static List<ProjectRecord> parseProjects() {
+        List<ProjectRecord> records = new ArrayList<>();
+        StorageBackends.get().load("projects", fields -> records.add(parseProject(fields)));
+        return records;
+    }
+
+    private static ProjectRecord parseProject(RecordFields fields) {
+        // Parse officers, keeping their approval flag when present
+        Map<String, Boolean> officers = new LinkedHashMap<>();
+        if (!fields.isEmpty(8)) {
+            RecordTokenizer officerIds = fields.subFields(8, ',');
+            for (int i = 0; i < officerIds.getFieldCount(); i++) {
+                RecordTokenizer officerParts = officerIds.subFields(i, ':');
+                officers.put(officerParts.getString(0),
+                    officerParts.getFieldCount() > 1 ? officerParts.getBoolean(1) : null);
+            }
+        }
+        
+        return new ProjectRecord(fields.getString(0), fields.getString(1),
+            parseUnits(fields, 2),
+            parseDate(fields, 3),
+            parseDate(fields, 4),
+            fields.getString(5),
+            fields.getBoolean(6),
+            fields.getInt(7),
+            officers,
+            // Set autoPublish property if it exists in the file
+            !fields.isEmpty(9) && fields.getBoolean(9),
+            // Parse remaining units if present in the file
+            fields.isEmpty(10) ? null : parseUnits(fields, 10));
+    }
+
+    /**
+     * Parses a "TYPE:count,TYPE:count" field
+     */
+    private static Map<FlatType, Integer> parseUnits(RecordFields fields, int index) {
+        Map<FlatType, Integer> units = new HashMap<>();
+        RecordTokenizer entries = fields.subFields(index, ',');
+        for (int i = 0; i < entries.getFieldCount(); i++) {
+            RecordTokenizer unitParts = entries.subFields(i, ':');
+            units.put(unitParts.getEnum(0, FlatType.class), unitParts.getInt(1));
+        }
+        return units;
+    }
+
+    /**
+     * Parses a yyyy-MM-dd field without going through a formatter
+     */
+    private static LocalDate parseDate(RecordFields fields, int index) {
+        RecordTokenizer dateParts = fields.subFields(index, '-');
+        return LocalDate.of(dateParts.getInt(0), dateParts.getInt(1), dateParts.getInt(2));
+    }
+
+    private BTOProject linkProject(ProjectRecord record) {
+        HDBManager manager = (HDBManager) UserManager.getInstance().getUser(record.managerNric());
+        
+        BTOProject project = new BTOProject(record.projectName(), record.neighborhood(), record.flatUnits(),
+            record.openDate(), record.closeDate(), manager, record.maxOfficerSlots());
+        project.setVisible(record.visible());
+        project.setAutoPublish(record.autoPublish());
+        
+        // Load officers
+        for (Map.Entry<String, Boolean> entry : record.officers().entrySet()) {
+            HDBOfficer officer = (HDBOfficer) UserManager.getInstance().getUser(entry.getKey());
+            if (officer != null) {
+                project.addOfficer(officer);
+                officer.setAssignedProject(project);
+                if (entry.getValue() != null) {
+                    officer.setRegistrationApproved(entry.getValue());
                 }
-                
-                projects.add(project);
-                manager.addCreatedProject(project);
             }
-        } catch (IOException e) {
-            System.err.println("Error loading projects: " + e.getMessage());
+        }
+        
+        // The counters come from the applications; keep the saved units to check them against
+        if (record.remainingUnits() != null) {
+            savedRemainingUnits.put(project.getProjectName(), record.remainingUnits());
+        }
+        
+        neighborhoodIndex.put(project, project.getNeighborhood());
+        manager.addCreatedProject(project);
+        return project;
+    }
+
+    private String[] toFields(BTOProject project) {
+        // Build flat units string (total units)
+        StringBuilder flatUnitsStr = new StringBuilder();
+        for (Map.Entry<FlatType, Integer> entry : project.getFlatUnits().entrySet()) {
+            if (flatUnitsStr.length() > 0) flatUnitsStr.append(",");
+            flatUnitsStr.append(entry.getKey()).append(":").append(entry.getValue());
+        }
+        
+        // Build remaining units string
+        StringBuilder remainingUnitsStr = new StringBuilder();
+        for (Map.Entry<FlatType, Integer> entry : project.getRemainingUnits().entrySet()) {
+            if (remainingUnitsStr.length() > 0) remainingUnitsStr.append(",");
+            remainingUnitsStr.append(entry.getKey()).append(":").append(entry.getValue());
+        }
+        
+        // Build officers string
+        StringBuilder officersStr = new StringBuilder();
+        for (HDBOfficer officer : project.getOfficers()) {
+            if (officersStr.length() > 0) officersStr.append(",");
+            officersStr.append(officer.getNric()).append(":").append(officer.isRegistrationApproved());
+        }
+        
+        return new String[] {
+            project.getProjectName(),
+            project.getNeighborhood(),
+            flatUnitsStr.toString(),
+            project.getApplicationOpenDate().format(DATE_FORMAT),
+            project.getApplicationCloseDate().format(DATE_FORMAT),
+            project.getManager().getNric(),
+            String.valueOf(project.isVisible()),
+            String.valueOf(project.getMaxOfficerSlots()),
+            officersStr.toString(),
+            String.valueOf(project.isAutoPublish()),
+            remainingUnitsStr.toString() // Added remaining units to the saved data
+        };
+    }
+
+    /**
+     * Hands the projects that changed since the last flush, and the names of removed
+     * projects, to the storage backend. Called by the PersistenceCoordinator.
+     */
+    private void flushProjects() {
+        List<String[]> upserts = new ArrayList<>(pendingProjects.size());
+        for (String name : pendingProjects.keySet()) {
+            String[] record = pendingProjects.remove(name);
+            if (record != null) {
+                upserts.add(record);
+            }
+        }
+        List<String> deleted = new ArrayList<>(deletedProjects.size());
+        for (String name : deletedProjects) {
+            if (deletedProjects.remove(name)) {
+                deleted.add(name);
+            }
+        }
+        if (!upserts.isEmpty() || !deleted.isEmpty()) {
+            StorageBackends.get().write("projects", upserts, deleted);
         }
     }
 
+    @Override
+    public void saveProject(BTOProject project) {
+        if (project == null || getProject(project.getProjectName()) != project) {
+            return;
+        }
+        // The record is taken under the project lock so the flush never sees a half-made change
+        StripedLocks.Held held = lockProjects(project.getProjectName());
+        try {
+            pendingProjects.put(project.getProjectName(), toFields(project));
+        } finally {
+            held.unlock();
+        }
+        PersistenceCoordinator.getInstance().markDirty("projects");
+    }
+
     @Override
     public void saveProjects() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("database/projects.txt"))) {
-            for (BTOProject project : projects) {
-                // Build flat units string (total units)
-                StringBuilder flatUnitsStr = new StringBuilder();
-                for (Map.Entry<FlatType, Integer> entry : project.getFlatUnits().entrySet()) {
-                    if (flatUnitsStr.length() > 0) flatUnitsStr.append(",");
-                    flatUnitsStr.append(entry.getKey()).append(":").append(entry.getValue());
-                }
-                
-                // Build remaining units string
-                StringBuilder remainingUnitsStr = new StringBuilder();
-                for (Map.Entry<FlatType, Integer> entry : project.getRemainingUnits().entrySet()) {
-                    if (remainingUnitsStr.length() > 0) remainingUnitsStr.append(",");
-                    remainingUnitsStr.append(entry.getKey()).append(":").append(entry.getValue());
-                }
-                
-                // Build officers string
-                StringBuilder officersStr = new StringBuilder();
-                for (HDBOfficer officer : project.getOfficers()) {
-                    if (officersStr.length() > 0) officersStr.append(",");
-                    officersStr.append(officer.getNric()).append(":").append(officer.isRegistrationApproved());
-                }
-                
-                writer.println(String.format("%s|%s|%s|%s|%s|%s|%b|%d|%s|%b|%s",
-                    project.getProjectName(),
-                    project.getNeighborhood(),
-                    flatUnitsStr.toString(),
-                    project.getApplicationOpenDate().format(DATE_FORMAT),
-                    project.getApplicationCloseDate().format(DATE_FORMAT),
-                    project.getManager().getNric(),
-                    project.isVisible(),
-                    project.getMaxOfficerSlots(),
-                    officersStr.toString(),
-                    project.isAutoPublish(),
-                    remainingUnitsStr.toString())); // Added remaining units to the saved data
+        // Commit queued changes first so that no flush can write an older record over the rewrite
+        PersistenceCoordinator.getInstance().commit();
+        List<BTOProject> catalog = getAllProjects();
+        List<String[]> records = new ArrayList<>(catalog.size());
+        for (BTOProject project : catalog) {
+            StripedLocks.Held held = lockProjects(project.getProjectName());
+            try {
+                records.add(toFields(project));
+            } finally {
+                held.unlock();
             }
-        } catch (IOException e) {
-            System.err.println("Error saving projects: " + e.getMessage());
         }
+        StorageBackends.get().replaceAll("projects", records);
     }
 
+    /**
+     * Gets the current catalog snapshot. Lists read from the manager afterwards come
+     * from this snapshot or a newer one.
+     */
+    public CatalogSnapshot getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns every project, as a read-only list from the current catalog snapshot
+     */
     @Override
     public List<BTOProject> getAllProjects() {
-        return new ArrayList<>(projects);
+        return catalog.projects();
     }
 
+    /**
+     * Returns the visible projects, as a read-only list from the current catalog snapshot
+     */
     @Override
     public List<BTOProject> getVisibleProjects() {
-        List<BTOProject> visibleProjects = new ArrayList<>();
-        for (BTOProject project : projects) {
-            if (project.isVisible()) {
-                visibleProjects.add(project);
-            }
+        return catalog.visibleProjects();
+    }
+
+    /**
+     * Publishes a new snapshot of the same projects, which also makes the cached
+     * eligible-project lists stale. Called after a project's visibility or application period changed.
+     */
+    private void projectListingChanged() {
+        catalogWriteLock.lock();
+        try {
+            publish(catalog.projects());
+        } finally {
+            catalogWriteLock.unlock();
         }
-        return visibleProjects;
     }
 
+    /**
+     * Replaces the catalog with a snapshot of the given projects. Callers hold catalogWriteLock.
+     */
+    private void publish(Collection<BTOProject> projects) {
+        catalog = CatalogSnapshot.of(catalog.version() + 1, projects);
+    }
+
+    /**
+     * Returns the visible projects an applicant or officer can apply for now. Eligibility
+     * only depends on which flat types the user may apply for, so the lists are cached per
+     * segment and rebuilt only after a listing change or when the date rolls over.
+     * The list is read-only for applicants; officers get a copy without their assigned project.
+     */
     @Override
     public List<BTOProject> getVisibleProjectsForUser(User user) {
         if (user instanceof Applicant || user instanceof HDBOfficer) {
-            List<BTOProject> eligibleProjects = new ArrayList<>();
-            List<BTOProject> visibleProjects = getVisibleProjects();
             Applicant applicant = (Applicant) user;
-            
-            for (BTOProject project : visibleProjects) {
-                if (!project.isApplicationOpen()) {
-                    continue;
-                }
-                
-                boolean canApply = false;
-                for (FlatType type : project.getFlatUnits().keySet()) {
-                    if (applicant.canApplyForFlatType(type)) {
-                        canApply = true;
-                        break;
-                    }
-                }
-                
-                if (canApply) {
-                    eligibleProjects.add(project);
+            int segment = 0;
+            for (FlatType type : FlatType.values()) {
+                if (applicant.canApplyForFlatType(type)) {
+                    segment |= 1 << type.ordinal();
                 }
             }
+            List<BTOProject> eligibleProjects = eligibleProjects(segment);
             
             if (user instanceof HDBOfficer) {
                 if (((HDBOfficer) user).getAssignedProject() != null) {
+                    eligibleProjects = new ArrayList<>(eligibleProjects);
                     eligibleProjects.remove(((HDBOfficer) user).getAssignedProject());
                 }
             }
@@ -184,20 +388,119 @@ public class ProjectManager implements IProjectManager {
         return getVisibleProjects();
     }
 
+    /**
+     * Renames a project's neighborhood and re-indexes it for neighborhood search
+     */
     @Override
-    public BTOProject getProject(String projectName) {
-        for (BTOProject project : projects) {
-            if (project.getProjectName().equals(projectName)) {
-                return project;
+    public void editNeighborhood(BTOProject project, String neighborhood) {
+        StripedLocks.Held held = lockProjects(project.getProjectName());
+        try {
+            project.setNeighborhood(neighborhood);
+            catalogWriteLock.lock();
+            try {
+                if (catalog.byName().get(project.getProjectName()) == project) {
+                    indexLock.writeLock().lock();
+                    try {
+                        neighborhoodIndex.put(project, neighborhood);
+                    } finally {
+                        indexLock.writeLock().unlock();
+                    }
+                }
+                publish(catalog.projects());
+            } finally {
+                catalogWriteLock.unlock();
+            }
+        } finally {
+            held.unlock();
+        }
+        saveProject(project);
+    }
+
+    @Override
+    public Set<BTOProject> findProjectsByNeighborhood(String query, int maxEdits) {
+        indexLock.readLock().lock();
+        try {
+            return neighborhoodIndex.search(query, maxEdits);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up a segment's list, replacing the whole cache once it is stale. Sessions racing
+     * to fill the same segment compute the same list, so the last one to store it wins harmlessly.
+     */
+    private List<BTOProject> eligibleProjects(int segment) {
+        LocalDate today = LocalDate.now();
+        CatalogSnapshot snapshot = catalog;
+        EligibleCache cache = eligibleCache;
+        if (cache == null || cache.version() != snapshot.version() || !today.equals(cache.date())) {
+            cache = new EligibleCache(snapshot.version(), today, new AtomicReferenceArray<>(1 << FlatType.values().length));
+            eligibleCache = cache;
+        }
+
+        List<BTOProject> eligible = cache.bySegment().get(segment);
+        if (eligible == null) {
+            List<BTOProject> matches = new ArrayList<>();
+            for (BTOProject project : snapshot.visibleProjects()) {
+                if (project.isVisible() && project.isApplicationOpen(today) && offersAny(project, segment)) {
+                    matches.add(project);
+                }
             }
+            eligible = Collections.unmodifiableList(matches);
+            cache.bySegment().set(segment, eligible);
         }
-        return null;
+        return eligible;
+    }
+
+    private static boolean offersAny(BTOProject project, int segment) {
+        for (FlatType type : FlatType.values()) {
+            if ((segment & (1 << type.ordinal())) != 0 && project.offersFlatType(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public BTOProject getProject(String projectName) {
+        if (projectName == null) {
+            return null;
+        }
+        return catalog.byName().get(projectName);
     }
 
     @Override
     public void addProject(BTOProject project) {
-        projects.add(project);
-        saveProjects();
+        catalogWriteLock.lock();
+        try {
+            // A project replacing one of the same name keeps its place in the catalog
+            Map<String, BTOProject> next = byNameInOrder();
+            next.put(project.getProjectName(), project);
+            indexLock.writeLock().lock();
+            try {
+                neighborhoodIndex.put(project, project.getNeighborhood());
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+            deletedProjects.remove(project.getProjectName());
+            publish(next.values());
+        } finally {
+            catalogWriteLock.unlock();
+        }
+        saveProject(project);
+    }
+
+    /**
+     * Copies the current catalog into a modifiable map, by name in catalog order
+     */
+    private Map<String, BTOProject> byNameInOrder() {
+        List<BTOProject> current = catalog.projects();
+        Map<String, BTOProject> byName = new LinkedHashMap<>(current.size() * 2);
+        for (BTOProject project : current) {
+            byName.put(project.getProjectName(), project);
+        }
+        return byName;
     }
 
     @Override
@@ -212,32 +515,130 @@ public class ProjectManager implements IProjectManager {
     @Override
     public boolean removeProject(BTOProject project) {
         if (project != null) {
-            // Release all assigned officers
-            for (HDBOfficer officer : project.getOfficers()) {
-                officer.setAssignedProject(null);
-                officer.setRegistrationApproved(false);
-            }
-            
-            // Remove the project from the manager's list
-            HDBManager manager = project.getManager();
-            if (manager != null) {
-                manager.removeCreatedProject(project);
+            StripedLocks.Held held = lockProjects(project.getProjectName());
+            try {
+                // Release all assigned officers
+                for (HDBOfficer officer : new ArrayList<>(project.getOfficers())) {
+                    project.removeOfficer(officer);
+                    officer.setAssignedProject(null);
+                    officer.setRegistrationApproved(false);
+                }
+                
+                // Remove the project from the manager's list
+                HDBManager manager = project.getManager();
+                if (manager != null) {
+                    manager.removeCreatedProject(project);
+                }
+                
+                // Remove from the project list
+                catalogWriteLock.lock();
+                try {
+                    Map<String, BTOProject> next = byNameInOrder();
+                    next.remove(project.getProjectName(), project);
+                    indexLock.writeLock().lock();
+                    try {
+                        neighborhoodIndex.remove(project);
+                    } finally {
+                        indexLock.writeLock().unlock();
+                    }
+                    pendingProjects.remove(project.getProjectName());
+                    deletedProjects.add(project.getProjectName());
+                    publish(next.values());
+                } finally {
+                    catalogWriteLock.unlock();
+                }
+            } finally {
+                held.unlock();
             }
-            
-            // Remove from the project list
-            projects.remove(project);
-            saveProjects();
+            PersistenceCoordinator.getInstance().markDirty("projects");
             return true;
         }
         return false;
     }
 
+    /**
+     * Shows a hidden project or hides a visible one. Hiding a project also turns off
+     * auto-publishing, so it is not shown again on its own.
+     * @return The project's new visibility
+     */
+    @Override
+    public boolean toggleVisibility(BTOProject project) {
+        boolean visible;
+        StripedLocks.Held held = lockProjects(project.getProjectName());
+        try {
+            visible = !project.isVisible();
+            project.setVisible(visible);
+            if (!visible) {
+                project.setAutoPublish(false);
+            }
+        } finally {
+            held.unlock();
+        }
+        projectListingChanged();
+        saveProject(project);
+        return visible;
+    }
+
+    /**
+     * Registers an officer on a project while holding the project's lock, so the
+     * slot check cannot race another registration
+     * @return True if the officer took a free slot
+     */
+    @Override
+    public boolean assignOfficer(BTOProject project, HDBOfficer officer) {
+        StripedLocks.Held held = lockProjects(project.getProjectName());
+        try {
+            if (!project.addOfficer(officer)) {
+                return false;
+            }
+            officer.setAssignedProject(project);
+        } finally {
+            held.unlock();
+        }
+        saveProject(project);
+        return true;
+    }
+
+    /**
+     * Takes an officer off a project while holding the project's lock
+     * @return True if the officer was on the project
+     */
+    @Override
+    public boolean removeOfficer(BTOProject project, HDBOfficer officer) {
+        StripedLocks.Held held = lockProjects(project.getProjectName());
+        try {
+            if (!project.removeOfficer(officer)) {
+                return false;
+            }
+            if (officer.getAssignedProject() == project) {
+                officer.setAssignedProject(null);
+            }
+        } finally {
+            held.unlock();
+        }
+        saveProject(project);
+        return true;
+    }
+
+    @Override
+    public void editProjectDates(BTOProject project, LocalDate openDate, LocalDate closeDate) {
+        StripedLocks.Held held = lockProjects(project.getProjectName());
+        try {
+            project.setApplicationOpenDate(openDate);
+            project.setApplicationCloseDate(closeDate);
+        } finally {
+            held.unlock();
+        }
+        projectListingChanged();
+        saveProject(project);
+    }
+
     @Override
     public void autoPublishProjects() {
         LocalDate currentDate = LocalDate.now();
-        boolean changesDetected = false;
+        boolean published = false;
         
-        for (BTOProject project : projects) {
+        for (BTOProject project : getAllProjects()) {
             // Check if project has auto-publish enabled AND is not visible AND today is on or after the opening date
             if (project.isAutoPublish() && !project.isVisible() && 
                 (currentDate.isEqual(project.getApplicationOpenDate()) || 
@@ -246,49 +647,83 @@ public class ProjectManager implements IProjectManager {
                 // Set project to visible
                 project.setVisible(true);
                 System.out.println("Auto-publishing project: " + project.getProjectName());
-                changesDetected = true;
+                saveProject(project);
+                published = true;
             }
         }
-        
-        // Only save if changes were made
-        if (changesDetected) {
-            saveProjects();
+        if (published) {
+            projectListingChanged();
+        }
+    }
+
+    @Override
+    public int verifyInventory() {
+        int rebuilt = 0;
+        for (BTOProject project : getAllProjects()) {
+            StripedLocks.Held held = lockProjects(project.getProjectName());
+            try {
+                if (!project.recountUnits()) {
+                    System.err.println("Unit counters of " + project.getProjectName() + " did not match its applications, rebuilt");
+                    rebuilt++;
+                }
+            } finally {
+                held.unlock();
+            }
         }
+        return rebuilt;
     }
 
+    /**
+     * Books or returns units of a flat type through the project's reservation pool
+     * @param booked Units to book, or a negative number of units to return
+     * @return False, with nothing changed, if not that many units could be booked or returned
+     */
     @Override
     public boolean updateRemainingUnits(BTOProject project, FlatType flatType, int booked) {
-        // Validate input parameters
-        if (project == null || flatType == null) {
+        if (project == null || flatType == null || !project.offersFlatType(flatType)) {
             return false;
         }
         
-        // Get current remaining units
-        Map<FlatType, Integer> remainingUnits = project.getRemainingUnits();
-        if (!remainingUnits.containsKey(flatType)) {
-            return false;
+        StripedLocks.Held held = lockProjects(project.getProjectName());
+        try {
+            for (int done = 0; done < Math.abs(booked); done++) {
+                if (!(booked > 0 ? project.tryReserveUnit(flatType) : project.releaseUnit(flatType))) {
+                    // Undo the units already taken or returned
+                    for (int i = 0; i < done; i++) {
+                        if (booked > 0) {
+                            project.releaseUnit(flatType);
+                        } else {
+                            project.tryReserveUnit(flatType);
+                        }
+                    }
+                    return false;
+                }
+            }
+        } finally {
+            held.unlock();
         }
-        
-        int current = remainingUnits.get(flatType);
-        int totalUnits = project.getFlatUnits().get(flatType);
-        
-        // Calculate new value
-        int newValue = current - booked;
-        
-        // Validate new value
-        if (newValue < 0 || newValue > totalUnits) {
-            return false;
+        if (booked != 0) {
+            saveProject(project);
         }
-        
-        // Update the remaining units
-        boolean updateSuccess = project.setRemainingUnitValue(flatType, newValue);
-        
-        // Save changes if update was successful
-        if (updateSuccess) {
-            saveProjects();
-            return true;
+        return true;
+    }
+
+    /**
+     * Checks the remaining units saved with each project against the unit counters
+     * rebuilt from its applications, which win. Called once the applications are linked,
+     * before any session runs.
+     */
+    void checkSavedUnits() {
+        for (BTOProject project : getAllProjects()) {
+            if (!project.recountUnits()) {
+                System.err.println("Unit counters of " + project.getProjectName() + " did not match its applications, rebuilt");
+            }
+            Map<FlatType, Integer> saved = savedRemainingUnits.get(project.getProjectName());
+            if (saved != null && !saved.equals(project.getRemainingUnits())) {
+                System.err.println("Error loading " + project.getProjectName() + ": saved remaining units " + saved +
+                    " do not match its applications, using " + project.getRemainingUnits());
+            }
         }
-        
-        return false;
+        savedRemainingUnits.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,322 @@
+package control;
+
+import entity.User;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Scanner;
+
+/**
+ * Everything that belongs to one user's session: who is signed in, where its input
+ * comes from and where its output goes. A session runs on a single thread and is
+ * bound to it, so managers and menus find it through current().
+ * Threads without a bound session get their own context on the process console.
+ * Once routeSystemOut() has been called, System.out writes to the current session's
+ * output, so the menus print to the right client however many sessions are running.
+ */
+public final class SessionContext implements AutoCloseable {
+    private static final PrintStream CONSOLE_OUT = System.out;
+    private static final ThreadLocal<SessionContext> CURRENT = ThreadLocal.withInitial(SessionContext::new);
+
+    private final InputStream in;
+    private final boolean console;
+    private PrintStream out;
+    private Scanner scanner;
+    private User user;
+
+    /**
+     * Creates a context on the process console
+     */
+    private SessionContext() {
+        this.in = System.in;
+        this.out = CONSOLE_OUT;
+        this.console = true;
+    }
+
+    private SessionContext(InputStream in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        this.console = false;
+    }
+
+    /**
+     * Gets the session of the calling thread
+     */
+    public static SessionContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts a session on the calling thread, reading and writing UTF-8 text.
+     * Pending output is flushed whenever the session waits for input, so prompts
+     * reach the client before it has to answer them.
+     * @param input Stream the session reads from
+     * @param output Stream the session writes to
+     * @return The session, unbound again by close()
+     */
+    public static SessionContext open(InputStream input, OutputStream output) {
+        PrintStream out = new PrintStream(new BufferedOutputStream(output), true, StandardCharsets.UTF_8);
+        SessionContext session = new SessionContext(new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                out.flush();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                out.flush();
+                return super.read(b, off, len);
+            }
+        }, out);
+        CURRENT.set(session);
+        return session;
+    }
+
+    /**
+     * Sends System.out to the output of whichever session is printing
+     */
+    public static synchronized void routeSystemOut() {
+        if (!(System.out instanceof RoutedOutput)) {
+            System.setOut(new RoutedOutput());
+        }
+    }
+
+    /**
+     * Gets the scanner all menus of this session read from. Sharing one scanner keeps
+     * input that one menu has buffered from being lost to the next.
+     */
+    public Scanner getScanner() {
+        if (scanner == null) {
+            scanner = new Scanner(in, StandardCharsets.UTF_8);
+        }
+        return scanner;
+    }
+
+    public PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * Redirects this session's output, e.g. to capture a report
+     * @param out The new output
+     * @return The previous output
+     */
+    public PrintStream setOut(PrintStream out) {
+        PrintStream previous = this.out;
+        this.out = out;
+        return previous;
+    }
+
+    /**
+     * Gets the terminal for reading passwords without echo, or null if the session has none
+     */
+    public Console getConsole() {
+        return console ? System.console() : null;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    /**
+     * Flushes the session's output and unbinds it from the calling thread
+     */
+    @Override
+    public void close() {
+        out.flush();
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * System.out replacement that forwards every call to the current session's output.
+     * Nothing is locked here, so a slow client only holds up its own session.
+     */
+    private static final class RoutedOutput extends PrintStream {
+        RoutedOutput() {
+            super(OutputStream.nullOutputStream());
+        }
+
+        private static PrintStream target() {
+            return CURRENT.get().out;
+        }
+
+        @Override
+        public void flush() {
+            target().flush();
+        }
+
+        @Override
+        public void close() {
+            target().flush();
+        }
+
+        @Override
+        public boolean checkError() {
+            return target().checkError();
+        }
+
+        @Override
+        public void write(int b) {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+            target().write(buf, off, len);
+        }
+
+        @Override
+        public void write(byte[] buf) throws IOException {
+            target().write(buf);
+        }
+
+        @Override
+        public void writeBytes(byte[] buf) {
+            target().writeBytes(buf);
+        }
+
+        @Override
+        public void print(boolean b) {
+            target().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            target().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            target().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            target().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            target().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            target().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            target().print(obj);
+        }
+
+        @Override
+        public void println() {
+            target().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            target().println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            target().printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            target().printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            target().format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            target().format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            target().append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            target().append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            target().append(c);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package control;
+
+import interfaces.IStorageBackend;
+
+/**
+ * Chooses the storage backend once at startup from -Dbtoms.storage:
+ * "file" (default) keeps the text files in database/, "memory" keeps everything in the
+ * heap for load tests, and "jdbc" stores records in an embedded database given by
+ * -Dbtoms.jdbc.url. A JDBC database that cannot be opened, e.g. because its driver is
+ * not on the classpath, stops the program rather than quietly using the flat files.
+ */
+public class StorageBackends {
+    private static IStorageBackend backend;
+
+    public static synchronized IStorageBackend get() {
+        if (backend == null) {
+            backend = create(System.getProperty("btoms.storage", "file"));
+        }
+        return backend;
+    }
+
+    /**
+     * Empty stores of the memory and JDBC backends are imported from the flat files
+     * unless -Dbtoms.storage.seed=false is given
+     */
+    private static IStorageBackend seed() {
+        return Boolean.parseBoolean(System.getProperty("btoms.storage.seed", "true")) ? new FlatFileBackend() : null;
+    }
+
+    private static IStorageBackend create(String name) {
+        switch (name) {
+            case "memory":
+                return new InMemoryBackend(seed());
+            case "jdbc":
+                String url = System.getProperty("btoms.jdbc.url", "jdbc:h2:./database/btoms");
+                try {
+                    return new JdbcBackend(url,
+                        System.getProperty("btoms.jdbc.user", ""),
+                        System.getProperty("btoms.jdbc.password", ""),
+                        seed());
+                } catch (java.sql.SQLException e) {
+                    throw new IllegalStateException("Cannot open JDBC storage at " + url +
+                        " (is the database's JDBC driver on the classpath?): " + e.getMessage(), e);
+                }
+            case "file":
+                return new FlatFileBackend();
+            default:
+                System.err.println("Unknown storage backend " + name + ", using flat files");
+                return new FlatFileBackend();
+        }
+    }
+}
@@ -3,54 +3,77 @@ package control;
 import entity.*;
 import enums.*;
 import interfaces.*;
+import util.RecordFields;
 import util.SystemLogger;
 import java.util.*;
-import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class UserManager implements IUserManager {
-    private static UserManager instance;
+    private static volatile UserManager instance;
     private Map<String, User> users;
-    private User currentUser;
 
     private UserManager() {
-        users = new HashMap<>();
-        loadUsers();
+        users = new ConcurrentHashMap<>();
+        PersistenceCoordinator.getInstance().register("users", this::saveUsers);
     }
 
     public static UserManager getInstance() {
-        if (instance == null) {
-            instance = new UserManager();
+        UserManager current = instance;
+        if (current == null) {
+            // Only the first caller loads the store; everyone else sees the published instance
+            synchronized (UserManager.class) {
+                if (instance == null) {
+                    bootstrap(parseUsers());
+                }
+                current = instance;
+            }
         }
-        return instance;
+        return current;
     }
 
-    private void loadUsers() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("database/users.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                User user = null;
-                UserType userType = UserType.valueOf(parts[4]);
-                
-                if (userType == UserType.APPLICANT) {
-                    user = new Applicant(parts[0], "", Integer.parseInt(parts[2]), 
-                        MaritalStatus.valueOf(parts[3]), parts[5]);
-                } else if (userType == UserType.HDB_OFFICER) {
-                    user = new HDBOfficer(parts[0], parts[1], Integer.parseInt(parts[2]), 
-                        MaritalStatus.valueOf(parts[3]),
-                        parts[5]);
-                } else if (userType == UserType.HDB_MANAGER) {
-                    user = new HDBManager(parts[0], parts[1], Integer.parseInt(parts[2]), 
-                        MaritalStatus.valueOf(parts[3]),
-                        parts[5]);
-                }
-                if (user != null) {
-                    user.setPassword(parts[1]);
-                    users.put(parts[0], user);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading users: " + e.getMessage());
+    /**
+     * Creates the singleton from users parsed ahead of time. Used by DataBootstrap.
+     * @param loaded The parsed users
+     * @return The installed instance
+     */
+    static UserManager bootstrap(List<User> loaded) {
+        UserManager manager = new UserManager();
+        for (User user : loaded) {
+            manager.users.put(user.getNric(), user);
+        }
+        instance = manager;
+        return manager;
+    }
+
+    /**
+     * Parses the users store. Users reference nothing else, so this needs no other manager.
+     * @return The parsed users in file order
+     */
+    static List<User> parseUsers() {
+        List<User> loaded = new ArrayList<>();
+        StorageBackends.get().load("users", fields -> addUser(fields, loaded));
+        return loaded;
+    }
+
+    private static void addUser(RecordFields fields, List<User> loaded) {
+        User user = null;
+        UserType userType = fields.getEnum(4, UserType.class);
+        
+        if (userType == UserType.APPLICANT) {
+            user = new Applicant(fields.getString(0), "", fields.getInt(2), 
+                fields.getEnum(3, MaritalStatus.class), fields.getString(5));
+        } else if (userType == UserType.HDB_OFFICER) {
+            user = new HDBOfficer(fields.getString(0), fields.getString(1), fields.getInt(2), 
+                fields.getEnum(3, MaritalStatus.class),
+                fields.getString(5));
+        } else if (userType == UserType.HDB_MANAGER) {
+            user = new HDBManager(fields.getString(0), fields.getString(1), fields.getInt(2), 
+                fields.getEnum(3, MaritalStatus.class),
+                fields.getString(5));
+        }
+        if (user != null) {
+            user.setPassword(fields.getString(1));
+            loaded.add(user);
         }
     }
 
@@ -58,7 +81,8 @@ public class UserManager implements IUserManager {
     public boolean login(String nric, String password) {
         User user = users.get(nric);
         if (user != null && user.validatePassword(password)) {
-            currentUser = user;
+            // Each session keeps its own signed-in user
+            SessionContext.current().setUser(user);
             // Log the successful login
             SystemLogger.logLogin(user.getNric(), user.getName(), user.getUserType().toString());
             return true;
@@ -68,20 +92,25 @@ public class UserManager implements IUserManager {
 
     @Override
     public void logout() {
-        if (currentUser != null) {
-            // Log the logout event before setting currentUser to null
-            SystemLogger.logLogout(currentUser.getNric(), currentUser.getName(), currentUser.getUserType().toString());
+        SessionContext session = SessionContext.current();
+        User user = session.getUser();
+        if (user != null) {
+            // Log the logout event before clearing the session's user
+            SystemLogger.logLogout(user.getNric(), user.getName(), user.getUserType().toString());
         }
-        currentUser = null;
+        session.setUser(null);
+        // Logout is a natural durability point for everything the session changed
+        PersistenceCoordinator.getInstance().commit();
     }
 
     @Override
     public boolean changePassword(String oldPassword, String newPassword) {
-        if (currentUser == null) {
+        User user = SessionContext.current().getUser();
+        if (user == null) {
             return false;
         }
 
-        if (!currentUser.validatePassword(oldPassword)) {
+        if (!user.validatePassword(oldPassword)) {
             return false;
         }
 
@@ -116,14 +145,14 @@ public class UserManager implements IUserManager {
             return false;
         }
 
-        currentUser.setPassword(newPassword, true);
-        saveUsers();
+        user.setPassword(newPassword, true);
+        PersistenceCoordinator.getInstance().markDirty("users");
         return true;
     }
 
     @Override
     public User getCurrentUser() {
-        return currentUser;
+        return SessionContext.current().getUser();
     }
 
     @Override
@@ -133,20 +162,17 @@ public class UserManager implements IUserManager {
 
     @Override
     public void saveUsers() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("database/users.txt"))) {
-            for (User user : users.values()) {
-                if (user instanceof Applicant) {
-                    writer.printf("%s,%s,%d,%s,%s,%s%n",
-                            user.getNric(), user.getPassword(), user.getAge(),
-                            user.getMaritalStatus(), user.getUserType(), user.getName());
-                } else {
-                    writer.printf("%s,%s,%d,%s,%s,%s%n",
-                            user.getNric(), user.getPassword(), user.getAge(),
-                            user.getMaritalStatus(), user.getUserType(), user.getName());
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving users: " + e.getMessage());
+        List<String[]> records = new ArrayList<>(users.size());
+        for (User user : users.values()) {
+            records.add(toFields(user));
         }
+        StorageBackends.get().replaceAll("users", records);
+    }
+
+    private String[] toFields(User user) {
+        return new String[] {
+            user.getNric(), user.getPassword(), String.valueOf(user.getAge()),
+            user.getMaritalStatus().name(), user.getUserType().name(), user.getName()
+        };
     }
 }
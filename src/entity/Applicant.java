@@ -39,7 +39,7 @@ public class Applicant extends User{
     }
 
     public List<Enquiry> getEnquiries() {
-        return new ArrayList<>(enquiries);
+        return Collections.unmodifiableList(enquiries);
     }
 
     public String getName() {
@@ -31,8 +31,19 @@ public class BTOApplication {
     public FlatType getAssignedFlatType() { return assignedFlatType; } // Getter for assigned flat type
     public boolean isWithdrawalRequested() { return withdrawalRequested; }
 
+    /**
+     * Gets the flat type a booking takes: the assigned one, or the selected one if none was assigned
+     */
+    public FlatType getBookedFlatType() {
+        return assignedFlatType != null ? assignedFlatType : selectedFlatType;
+    }
+
     public void setStatus(ApplicationStatus status) {
+        ApplicationStatus oldStatus = this.status;
         this.status = status;
+        if (project != null) {
+            project.applicationChanged(this, oldStatus, selectedFlatType);
+        }
     }
 
     public void requestWithdrawal() {
@@ -49,7 +60,11 @@ public class BTOApplication {
     }
 
     public void setSelectedFlatType(FlatType flatType) {
+        FlatType oldFlatType = this.selectedFlatType;
         this.selectedFlatType = flatType;
+        if (project != null) {
+            project.applicationChanged(this, status, oldFlatType);
+        }
     }
     
     // New method to set the assigned flat type by officer
@@ -1,19 +1,25 @@
 package entity;
 
 import enums.*;
+import util.NricSet;
+import util.UnitReservations;
 import java.util.*;
+import java.util.function.Consumer;
 import java.time.LocalDate;
 
 public class BTOProject {
     private String projectName;
     private String neighborhood;
     private Map<FlatType, Integer> flatUnits;
-    private Map<FlatType, Integer> remainingUnits;
     private LocalDate applicationOpenDate;
     private LocalDate applicationCloseDate;
     private HDBManager manager;
     private List<HDBOfficer> officers;
-    private List<BTOApplication> applications;
+    private Set<BTOApplication> applications; // In insertion order
+    private final NricSet applicantNrics;
+    private final int[] totalUnits; // Indexed by FlatType ordinal
+    private final int[] heldUnits; // Applications still holding a unit, indexed by FlatType ordinal
+    private final UnitReservations bookedUnits; // Booked units, by FlatType ordinal
     private List<Enquiry> enquiries;
     private boolean visible;
     private int maxOfficerSlots;
@@ -24,12 +30,18 @@ public class BTOProject {
         this.projectName = projectName;
         this.neighborhood = neighborhood;
         this.flatUnits = new HashMap<>(flatUnits);
-        this.remainingUnits = new HashMap<>(flatUnits); // Initialize with total units
         this.applicationOpenDate = openDate;
         this.applicationCloseDate = closeDate;
         this.manager = manager;
         this.officers = new ArrayList<>();
-        this.applications = new ArrayList<>();
+        this.applications = new LinkedHashSet<>();
+        this.applicantNrics = new NricSet();
+        this.totalUnits = new int[FlatType.values().length];
+        this.heldUnits = new int[FlatType.values().length];
+        for (Map.Entry<FlatType, Integer> entry : flatUnits.entrySet()) {
+            totalUnits[entry.getKey().ordinal()] = entry.getValue();
+        }
+        this.bookedUnits = new UnitReservations(totalUnits);
         this.enquiries = new ArrayList<>();
         this.visible = false;
         this.maxOfficerSlots = maxOfficerSlots;
@@ -44,30 +56,72 @@ public class BTOProject {
 
     public String getProjectName() { return projectName; }
     public String getNeighborhood() { return neighborhood; }
-    public Map<FlatType, Integer> getFlatUnits() { return new HashMap<>(flatUnits); }
+    /**
+     * Gets the total units per flat type as a read-only view
+     */
+    public Map<FlatType, Integer> getFlatUnits() { return Collections.unmodifiableMap(flatUnits); }
+
+    /**
+     * Gets the total units of one flat type
+     * @return The number of units, or 0 if the project does not offer the flat type
+     */
+    public int totalUnits(FlatType flatType) { return totalUnits[flatType.ordinal()]; }
+
+    public boolean offersFlatType(FlatType flatType) { return flatUnits.containsKey(flatType); }
     public Map<FlatType, Integer> getRemainingUnits() { 
-        // Calculate actual remaining units based on applications
-        Map<FlatType, Integer> actualRemaining = new HashMap<>(flatUnits);
-        
-        // Count applications for each flat type
-        for (BTOApplication app : applications) {
-            // Only count applications that are not withdrawn or unsuccessful
-            if (app.getStatus() != ApplicationStatus.WITHDRAWN && 
-                app.getStatus() != ApplicationStatus.UNSUCCESSFUL) {
-                FlatType type = app.getSelectedFlatType();
-                // Decrease the count for this flat type
-                actualRemaining.put(type, actualRemaining.get(type) - 1);
-            }
+        // Remaining units are total units less the applications still holding one
+        Map<FlatType, Integer> actualRemaining = new HashMap<>();
+        for (FlatType type : flatUnits.keySet()) {
+            actualRemaining.put(type, getRemainingUnits(type));
         }
-        
         return actualRemaining;
     }
+
+    /**
+     * Gets the remaining units of one flat type without recounting applications
+     * @param flatType The flat type to check
+     * @return Total units less the applications holding one; negative if oversubscribed
+     */
+    public int getRemainingUnits(FlatType flatType) {
+        return totalUnits[flatType.ordinal()] - heldUnits[flatType.ordinal()];
+    }
+
+    /**
+     * Gets the remaining units summed over all flat types offered by this project
+     * @return The total remaining units
+     */
+    public int getTotalRemainingUnits() {
+        int total = 0;
+        for (FlatType type : FlatType.values()) {
+            if (flatUnits.containsKey(type)) {
+                total += getRemainingUnits(type);
+            }
+        }
+        return total;
+    }
     public LocalDate getApplicationOpenDate() { return applicationOpenDate; }
     public LocalDate getApplicationCloseDate() { return applicationCloseDate; }
     public HDBManager getManager() { return manager; }
-    public List<HDBOfficer> getOfficers() { return new ArrayList<>(officers); }
-    public List<BTOApplication> getApplications() { return new ArrayList<>(applications); }
-    public List<Enquiry> getEnquiries() { return new ArrayList<>(enquiries); }
+    /**
+     * The getters below return read-only views that follow later changes;
+     * copy them before adding or removing officers, applications or enquiries while iterating
+     */
+    public List<HDBOfficer> getOfficers() { return Collections.unmodifiableList(officers); }
+    public Collection<BTOApplication> getApplications() { return Collections.unmodifiableCollection(applications); }
+    public List<Enquiry> getEnquiries() { return Collections.unmodifiableList(enquiries); }
+    public int officerCount() { return officers.size(); }
+    public int applicationCount() { return applications.size(); }
+    public boolean hasOfficer(HDBOfficer officer) { return officers.contains(officer); }
+
+    /**
+     * Runs an action on each application of this project, in the order they were added
+     * @param action The action to run
+     */
+    public void forEachApplication(Consumer<BTOApplication> action) {
+        for (BTOApplication application : applications) {
+            action.accept(application);
+        }
+    }
     public boolean isVisible() { return visible; }
     public int getMaxOfficerSlots() { return maxOfficerSlots; }
     public int getRemainingOfficerSlots() { return maxOfficerSlots - officers.size(); }
@@ -75,20 +129,56 @@ public class BTOProject {
 
     public void setVisible(boolean visible) { this.visible = visible; }
     public void setNeighborhood(String neighborhood) { this.neighborhood = neighborhood; }
-    public void setApplicationOpenDate(LocalDate openDate) { this.applicationOpenDate = openDate; }
-    public void setApplicationCloseDate(LocalDate closeDate) { this.applicationCloseDate = closeDate; }
+    public void setApplicationOpenDate(LocalDate openDate) {
+        this.applicationOpenDate = openDate;
+        applicationPeriodChanged();
+    }
+    public void setApplicationCloseDate(LocalDate closeDate) {
+        this.applicationCloseDate = closeDate;
+        applicationPeriodChanged();
+    }
     public void setAutoPublish(boolean autoPublish) { this.autoPublish = autoPublish; }
     
     public boolean addOfficer(HDBOfficer officer) {
         if (officers.size() >= maxOfficerSlots) return false;
         if (officers.contains(officer)) return false;
-        return officers.add(officer);
+        officers.add(officer);
+        officer.addHandledProject(this);
+        return true;
+    }
+
+    /**
+     * Removes an officer from this project
+     * @param officer The officer to remove
+     * @return True if the officer was on this project
+     */
+    public boolean removeOfficer(HDBOfficer officer) {
+        if (!officers.remove(officer)) return false;
+        officer.removeHandledProject(this);
+        return true;
+    }
+
+    /**
+     * Moves this project's period in the overlap indexes of its manager and officers
+     */
+    private void applicationPeriodChanged() {
+        if (applicationOpenDate == null || applicationCloseDate == null) {
+            return;
+        }
+        if (manager != null) {
+            manager.managedProjectPeriodChanged(this);
+        }
+        for (HDBOfficer officer : officers) {
+            officer.handledProjectPeriodChanged(this);
+        }
     }
     
     public void addApplication(BTOApplication application) {
-        applications.add(application);
-        // Update remaining units when adding an application
-        updateRemainingUnits();
+        if (applications.add(application)) {
+            applicantNrics.add(application.getApplicant().getNric());
+            // Update remaining units when adding an application
+            adjustHeldUnits(application.getStatus(), application.getSelectedFlatType(), 1);
+        }
     }
     
     /**
@@ -99,81 +189,105 @@ public class BTOProject {
     public boolean removeApplication(BTOApplication application) {
         boolean removed = applications.remove(application);
         if (removed) {
+            applicantNrics.remove(application.getApplicant().getNric());
             // Update remaining units when removing an application
-            updateRemainingUnits();
+            adjustHeldUnits(application.getStatus(), application.getSelectedFlatType(), -1);
         }
         return removed;
     }
-    
-    public void addEnquiry(Enquiry enquiry) {
-        enquiries.add(enquiry);
+
+    /**
+     * Moves an application's unit between counters after its status or flat type changed.
+     * Called by BTOApplication; applications not in this project are ignored.
+     * @param application The application that changed
+     * @param oldStatus Its status before the change
+     * @param oldFlatType Its selected flat type before the change
+     */
+    void applicationChanged(BTOApplication application, ApplicationStatus oldStatus, FlatType oldFlatType) {
+        if (applications.contains(application)) {
+            adjustHeldUnits(oldStatus, oldFlatType, -1);
+            adjustHeldUnits(application.getStatus(), application.getSelectedFlatType(), 1);
+        }
     }
-    
-    public boolean hasApplicant(String nric) {
-        for (BTOApplication app : applications) {
-            if (app.getApplicant().getNric().equals(nric)) {
-                return true;
-            }
+
+    private void adjustHeldUnits(ApplicationStatus status, FlatType flatType, int delta) {
+        if (holdsUnit(status) && flatType != null) {
+            heldUnits[flatType.ordinal()] += delta;
         }
-        return false;
     }
-    
-    public boolean isApplicationPeriodOverlapping(BTOProject other) {
-        return !(this.applicationCloseDate.isBefore(other.applicationOpenDate) ||
-                this.applicationOpenDate.isAfter(other.applicationCloseDate));
+
+    /**
+     * Whether an application in this status still holds a unit; withdrawn and
+     * unsuccessful applications give theirs back
+     */
+    private static boolean holdsUnit(ApplicationStatus status) {
+        return status != ApplicationStatus.WITHDRAWN && status != ApplicationStatus.UNSUCCESSFUL;
     }
-    
+
     /**
-     * Sets the remaining units value for a specific flat type.
-     * This is a helper method used by ProjectManager.
-     * @param flatType The flat type to update
-     * @param value The new remaining units value
-     * @return True if the update was successful, false otherwise
+     * Re-derives the unit counters and booked units from the applications and replaces them.
+     * Callers hold the project's lock, under which every unit is booked and returned.
+     * @return True if the counters already matched the applications
      */
-    public boolean setRemainingUnitValue(FlatType flatType, int value) {
-        // Validate that the flat type exists in both maps
-        if (!remainingUnits.containsKey(flatType) || !flatUnits.containsKey(flatType)) {
-            return false;
+    public boolean recountUnits() {
+        int[] derived = new int[heldUnits.length];
+        int[] booked = new int[heldUnits.length];
+        for (BTOApplication app : applications) {
+            if (holdsUnit(app.getStatus()) && app.getSelectedFlatType() != null) {
+                derived[app.getSelectedFlatType().ordinal()]++;
+            }
+            if (app.getStatus() == ApplicationStatus.BOOKED && app.getBookedFlatType() != null) {
+                booked[app.getBookedFlatType().ordinal()]++;
+            }
         }
-        
-        // Ensure value is not negative and doesn't exceed total units
-        int totalUnits = flatUnits.get(flatType);
-        if (value < 0 || value > totalUnits) {
-            return false;
+        boolean consistent = Arrays.equals(derived, heldUnits);
+        System.arraycopy(derived, 0, heldUnits, 0, derived.length);
+        for (int i = 0; i < booked.length; i++) {
+            consistent &= booked[i] == bookedUnits.reserved(i);
+            bookedUnits.setReserved(i, booked[i]);
         }
-        
-        // Update the remaining units
-        remainingUnits.put(flatType, value);
-        return true;
+        return consistent;
     }
-    
+
     /**
-     * Sets the remaining units for all flat types.
-     * This method allows for explicit control over all remaining unit values.
-     * @param remainingUnits A map containing flat types and their remaining unit counts
-     * @return True if the update was successful, false otherwise
+     * Books one unit of a flat type if any is left. Atomic, so exactly one booking gets the
+     * last unit; callers still hold the project's lock so that recountUnits() never runs meanwhile.
+     * @param flatType The flat type to book
+     * @return False if every unit of the flat type is already booked
      */
-    public boolean setRemainingUnits(Map<FlatType, Integer> remainingUnits) {
-        // Validate that the provided map contains all flat types from flatUnits
-        if (remainingUnits == null || !this.flatUnits.keySet().equals(remainingUnits.keySet())) {
-            return false;
-        }
-        
-        // Validate that remaining units don't exceed total units for any flat type
-        for (Map.Entry<FlatType, Integer> entry : remainingUnits.entrySet()) {
-            FlatType type = entry.getKey();
-            int remaining = entry.getValue();
-            int total = this.flatUnits.get(type);
-            
-            // Remaining units cannot be negative or exceed total units
-            if (remaining < 0 || remaining > total) {
-                return false;
-            }
-        }
-        
-        // All validation passed, update the remainingUnits map
-        this.remainingUnits = new HashMap<>(remainingUnits);
-        return true;
+    public boolean tryReserveUnit(FlatType flatType) {
+        return bookedUnits.tryReserve(flatType.ordinal());
+    }
+
+    /**
+     * Returns a booked unit of a flat type, e.g. when a booking is withdrawn
+     * @param flatType The flat type of the booked unit
+     * @return False if no unit of the flat type was booked
+     */
+    public boolean releaseUnit(FlatType flatType) {
+        return bookedUnits.release(flatType.ordinal());
+    }
+
+    /**
+     * Gets the units of a flat type that are not booked yet
+     * @param flatType The flat type to check
+     * @return The number of unbooked units, or 0 if the project does not offer the flat type
+     */
+    public int getUnbookedUnits(FlatType flatType) {
+        return bookedUnits.available(flatType.ordinal());
+    }
+    
+    public void addEnquiry(Enquiry enquiry) {
+        enquiries.add(enquiry);
+    }
+    
+    public boolean hasApplicant(String nric) {
+        return applicantNrics.contains(nric);
+    }
+    
+    public boolean isApplicationPeriodOverlapping(BTOProject other) {
+        return !(this.applicationCloseDate.isBefore(other.applicationOpenDate) ||
+                this.applicationOpenDate.isAfter(other.applicationCloseDate));
     }
     
     /**
@@ -185,27 +299,11 @@ public class BTOProject {
     }
     
     public boolean isApplicationOpen() {
-        LocalDate now = LocalDate.now();
-        return !now.isBefore(applicationOpenDate) && !now.isAfter(applicationCloseDate);
+        return isApplicationOpen(LocalDate.now());
     }
-    
-    /**
-     * Updates the remaining units based on current applications
-     */
-    private void updateRemainingUnits() {
-        // Start with total units
-        Map<FlatType, Integer> newRemaining = new HashMap<>(flatUnits);
-        
-        // Subtract used units based on applications
-        for (BTOApplication app : applications) {
-            if (app.getStatus() != ApplicationStatus.WITHDRAWN && 
-                app.getStatus() != ApplicationStatus.UNSUCCESSFUL) {
-                FlatType type = app.getSelectedFlatType();
-                newRemaining.put(type, newRemaining.get(type) - 1);
-            }
-        }
-        
-        this.remainingUnits = newRemaining;
+
+    public boolean isApplicationOpen(LocalDate date) {
+        return !date.isBefore(applicationOpenDate) && !date.isAfter(applicationCloseDate);
     }
     
     /**
@@ -213,21 +311,7 @@ public class BTOProject {
      * @return A map of flat types to their actual remaining units
      */
     public Map<FlatType, Integer> calculateActualRemainingUnits() {
-        // Start with the total units
-        Map<FlatType, Integer> actualRemaining = new HashMap<>(flatUnits);
-        
-        // Count applications for each flat type
-        for (BTOApplication app : applications) {
-            // Only count applications that are not withdrawn or unsuccessful
-            if (app.getStatus() != ApplicationStatus.WITHDRAWN && 
-                app.getStatus() != ApplicationStatus.UNSUCCESSFUL) {
-                FlatType type = app.getSelectedFlatType();
-                // Decrease the count for this flat type
-                actualRemaining.put(type, actualRemaining.get(type) - 1);
-            }
-        }
-        
-        return actualRemaining;
+        return getRemainingUnits();
     }
     
     /**
@@ -239,19 +323,6 @@ public class BTOProject {
         if (!flatUnits.containsKey(flatType)) {
             return 0;
         }
-        
-        int totalUnits = flatUnits.get(flatType);
-        int usedUnits = 0;
-        
-        // Count applications for this flat type
-        for (BTOApplication app : applications) {
-            if (app.getStatus() != ApplicationStatus.WITHDRAWN && 
-                app.getStatus() != ApplicationStatus.UNSUCCESSFUL &&
-                app.getSelectedFlatType() == flatType) {
-                usedUnits++;
-            }
-        }
-        
-        return Math.max(0, totalUnits - usedUnits);
+        return Math.max(0, getRemainingUnits(flatType));
     }
 }
\ No newline at end of file
@@ -3,23 +3,34 @@ package entity;
 import enums.MaritalStatus;
 import enums.UserType;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.time.LocalDate;
+import util.IntervalIndex;
 
 public class HDBManager extends User{
     private List<BTOProject> managedProjects;
+    private IntervalIndex<BTOProject> managedPeriods; // Application periods of managedProjects
 
     public HDBManager(String nric, String password, int age, MaritalStatus maritalStatus, String name) {
         super(nric, password, age, maritalStatus, UserType.HDB_MANAGER, name);
         this.managedProjects = new ArrayList<>();
+        this.managedPeriods = new IntervalIndex<>();
     }
 
+    /**
+     * Gets the projects this manager created as a read-only view
+     */
     public List<BTOProject> getManagedProjects() {
-        return new ArrayList<>(managedProjects);
+        return Collections.unmodifiableList(managedProjects);
+    }
+
+    public boolean managesProject(BTOProject project) {
+        return managedProjects.contains(project);
     }
 
     public void addCreatedProject(BTOProject project) {
         this.managedProjects.add(project);
+        managedPeriods.put(project, project.getApplicationOpenDate(), project.getApplicationCloseDate());
     }
     
     /**
@@ -28,16 +39,26 @@ public class HDBManager extends User{
      * @return true if the project was removed, false if it wasn't in the list
      */
     public boolean removeCreatedProject(BTOProject project) {
-        return this.managedProjects.remove(project);
+        if (!this.managedProjects.remove(project)) {
+            return false;
+        }
+        if (!managedProjects.contains(project)) {
+            managedPeriods.remove(project);
+        }
+        return true;
     }
 
     public boolean canHandleNewProject(BTOProject newProject) {
-        for (BTOProject project : managedProjects) {
-            if (project.isApplicationPeriodOverlapping(newProject)) {
-                return false;
-            }
+        return !managedPeriods.overlaps(newProject.getApplicationOpenDate(), newProject.getApplicationCloseDate());
+    }
+
+    /**
+     * Moves a managed project in the overlap index after its dates were edited. Called by BTOProject.
+     */
+    void managedProjectPeriodChanged(BTOProject project) {
+        if (managedPeriods.remove(project)) {
+            managedPeriods.put(project, project.getApplicationOpenDate(), project.getApplicationCloseDate());
         }
-        return true;
     }
 
     @Override
@@ -3,20 +3,22 @@ package entity;
 import enums.MaritalStatus;
 import enums.UserType;
 import enums.ApplicationStatus;
-import java.util.List;
-import java.util.ArrayList;
-import control.ProjectManager;
+import java.util.Collection;
+import java.util.Collections;
+import util.IntervalIndex;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class HDBOfficer extends Applicant{
     private BTOProject assignedProject;
     private boolean registrationApproved;
+    private IntervalIndex<BTOProject> handledPeriods; // Application periods of the projects this officer is on
 
     public HDBOfficer(String nric, String password, int age, MaritalStatus maritalStatus, String name) {
         super(nric, password, age, maritalStatus, name);
         this.assignedProject = null;
         this.registrationApproved = false;
+        this.handledPeriods = new IntervalIndex<>();
     }
 
     public BTOProject getAssignedProject() {
@@ -44,18 +46,31 @@ public class HDBOfficer extends Applicant{
             return false;
         }
 
-        List<BTOProject> allProjects = ProjectManager.getInstance().getAllProjects();
-        for (BTOProject p : allProjects) {
-            if (p.getOfficers().contains(this) && p.isApplicationPeriodOverlapping(project)) {
-                return false;
-            }
+        return !handledPeriods.overlaps(project.getApplicationOpenDate(), project.getApplicationCloseDate());
+    }
+
+    /**
+     * Records that this officer joined a project. Called by BTOProject.addOfficer.
+     */
+    void addHandledProject(BTOProject project) {
+        handledPeriods.put(project, project.getApplicationOpenDate(), project.getApplicationCloseDate());
+    }
+
+    /**
+     * Records that this officer left a project. Called by BTOProject.removeOfficer.
+     */
+    void removeHandledProject(BTOProject project) {
+        handledPeriods.remove(project);
+    }
+
+    void handledProjectPeriodChanged(BTOProject project) {
+        if (handledPeriods.remove(project)) {
+            addHandledProject(project);
         }
-        
-        return true;
     }
 
-    public List<BTOApplication> getApplications() {
-        return assignedProject != null ? assignedProject.getApplications() : new ArrayList<>();
+    public Collection<BTOApplication> getApplications() {
+        return assignedProject != null ? assignedProject.getApplications() : Collections.emptyList();
     }
 
     public boolean canGenerateReceipt(BTOApplication application) {
@@ -10,6 +10,9 @@ import java.util.List;
 
 public interface IApplicationManager {
     List<BTOApplication> getApplicationsForProject(String projectName);
+    List<BTOApplication> getApplicationsForProject(String projectName, ApplicationStatus status);
+    List<BTOApplication> getApplicationsByStatus(ApplicationStatus status);
+    BTOApplication getApplicationForApplicant(String nric);
     boolean createApplication(Applicant applicant, BTOProject project, FlatType flatType);
     boolean updateApplicationStatus(BTOApplication application, ApplicationStatus newStatus);
     boolean requestWithdrawal(BTOApplication application);
@@ -17,5 +20,6 @@ public interface IApplicationManager {
     boolean rejectWithdrawal(BTOApplication application);
     boolean bookFlatWithType(BTOApplication application, FlatType selectedFlatType);
     String generateReceipt(BTOApplication application, HDBOfficer officer);
+    void commitChanges();
     void saveApplications();
 } 
\ No newline at end of file
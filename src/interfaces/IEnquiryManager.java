@@ -8,6 +8,8 @@ import java.util.List;
 
 public interface IEnquiryManager {
     List<Enquiry> getEnquiriesForProject(String projectName);
+    List<Enquiry> getUnrepliedEnquiriesForProject(String projectName);
+    List<Enquiry> searchEnquiries(String projectName, String query, int limit);
     List<Enquiry> getEnquiriesForUser(String nric);
     Enquiry getEnquiry(String id);
     Enquiry createEnquiry(User creator, BTOProject project, String content);
@@ -1,20 +1,31 @@
 package interfaces;
 
 import entity.BTOProject;
+import entity.HDBOfficer;
 import entity.User;
 import enums.FlatType;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface IProjectManager {
     List<BTOProject> getAllProjects();
     List<BTOProject> getVisibleProjects();
     List<BTOProject> getVisibleProjectsForUser(User user);
     BTOProject getProject(String projectName);
+    Set<BTOProject> findProjectsByNeighborhood(String query, int maxEdits);
     void addProject(BTOProject project);
     boolean deleteProject(String projectName);
     boolean removeProject(BTOProject project);
+    boolean toggleVisibility(BTOProject project);
+    void editNeighborhood(BTOProject project, String neighborhood);
+    boolean assignOfficer(BTOProject project, HDBOfficer officer);
+    boolean removeOfficer(BTOProject project, HDBOfficer officer);
+    void editProjectDates(BTOProject project, LocalDate openDate, LocalDate closeDate);
     void autoPublishProjects();
     boolean updateRemainingUnits(BTOProject project, FlatType flatType, int booked);
+    int verifyInventory();
+    void saveProject(BTOProject project);
     void saveProjects();
 } 
\ No newline at end of file
@@ -0,0 +1,52 @@
+package interfaces;
+
+import util.RecordFields;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage SPI the managers delegate persistence to.
+ * A store ("users", "projects", "applications" or "enquiries") is an ordered set of
+ * records, each record being the store's fields in the column order of its text file.
+ * Records are keyed by their first column (NRIC, project name, applicant NRIC, enquiry id).
+ */
+public interface IStorageBackend {
+    /**
+     * Streams every record of a store, in store order. The fields object passed to the
+     * consumer is reused for the next record, so read what is needed before returning.
+     * @param store Name of the store
+     * @param consumer Receives each record
+     */
+    void load(String store, Consumer<RecordFields> consumer);
+
+    /**
+     * Applies a batch of changes to a store
+     * @param store Name of the store
+     * @param upserts Records to insert, or to replace the record with the same key, oldest first
+     * @param deletedKeys Keys of records to remove
+     */
+    void write(String store, List<String[]> upserts, List<String> deletedKeys);
+
+    /**
+     * Whether write() can apply a batch to a store without reading the store back.
+     * When it cannot, the manager owning the store rewrites it from memory with replaceAll().
+     * @param store Name of the store
+     * @return True if batches can be written to the store
+     */
+    default boolean writesIncrementally(String store) {
+        return true;
+    }
+
+    /**
+     * Replaces the whole contents of a store
+     * @param store Name of the store
+     * @param records Every record of the store, in store order
+     */
+    void replaceAll(String store, List<String[]> records);
+
+    /**
+     * Releases any resources held by the backend once all stores are written
+     */
+    default void close() {
+    }
+}
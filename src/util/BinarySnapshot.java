@@ -0,0 +1,293 @@
+package util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Versioned binary snapshot of a delimited text store.
+ * Records are length-prefixed lists of fields. Fields in dictionary columns (NRICs,
+ * project names, neighborhoods, enum names) are written once and then referenced by id.
+ * Each snapshot carries the fingerprint of the text source it was written from, so a
+ * snapshot that no longer matches its text file is ignored at boot. A CRC32 of the whole
+ * snapshot is stored at its end; a damaged snapshot is likewise ignored.
+ */
+public class BinarySnapshot {
+    private static final int MAGIC = 0x42544F53; // "BTOS"
+    private static final int VERSION = 2;
+    private static final int TAG_INLINE = 0;
+    private static final int TAG_NEW_ENTRY = 1;
+    private static final int TAG_REFERENCE = 2;
+
+    /**
+     * Checks whether binary snapshots should be written alongside the text files
+     * @return True if -Dbtoms.snapshot.binary=true is set
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("btoms.snapshot.binary");
+    }
+
+    /**
+     * Builds a fingerprint from the size and modification time of the text source
+     * @param sources The text file, or every file of a multi-file store
+     * @return A fingerprint string that changes whenever a source changes
+     */
+    public static String fingerprint(File... sources) {
+        long totalLength = 0;
+        long lastModified = 0;
+        for (File source : sources) {
+            totalLength += source.length();
+            lastModified = Math.max(lastModified, source.lastModified());
+        }
+        return sources.length + ":" + totalLength + ":" + lastModified;
+    }
+
+    /**
+     * Reads a snapshot if it exists and was written from the given text source state
+     * @param snapshotFile The binary snapshot file
+     * @param expectedFingerprint Fingerprint of the current text source, or null to skip the check
+     * @param consumer Receives the fields of each record in order
+     * @return True if the snapshot was used, false if the caller should fall back to text
+     */
+    public static boolean read(File snapshotFile, String expectedFingerprint, Consumer<String[]> consumer) {
+        if (!snapshotFile.exists() || !checksumMatches(snapshotFile)) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+                return false;
+            }
+            String fingerprint = readString(in);
+            if (expectedFingerprint != null && !fingerprint.equals(expectedFingerprint)) {
+                return false;
+            }
+            in.readChar(); // Delimiter, only needed when converting back to text
+
+            List<String> dictionary = new ArrayList<>();
+            byte[] buffer = new byte[256];
+            int recordLength;
+            while ((recordLength = readVarInt(in)) > 0) {
+                if (buffer.length < recordLength) {
+                    buffer = new byte[Math.max(recordLength, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, recordLength);
+                consumer.accept(decodeRecord(buffer, recordLength, dictionary));
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error reading snapshot " + snapshotFile.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks the CRC32 stored in the last four bytes against the rest of the snapshot
+     */
+    private static boolean checksumMatches(File snapshotFile) {
+        long length = snapshotFile.length() - 4;
+        if (length < 0) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile), 1 << 16))) {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[1 << 16];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+            return (in.readInt() & 0xFFFFFFFFL) == crc.getValue();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the delimiter stored in a snapshot header
+     * @param snapshotFile The binary snapshot file
+     * @return The delimiter of the text format the snapshot was written from
+     */
+    public static char readDelimiter(File snapshotFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+                throw new IOException("Not a BTOMS snapshot: " + snapshotFile.getName());
+            }
+            readString(in);
+            return in.readChar();
+        }
+    }
+
+    private static String[] decodeRecord(byte[] buffer, int length, List<String> dictionary) {
+        int[] position = {0};
+        int fieldCount = readVarInt(buffer, position);
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            int tag = buffer[position[0]++];
+            if (tag == TAG_REFERENCE) {
+                fields[i] = dictionary.get(readVarInt(buffer, position));
+            } else {
+                int byteLength = readVarInt(buffer, position);
+                String value = new String(buffer, position[0], byteLength, StandardCharsets.UTF_8);
+                position[0] += byteLength;
+                if (tag == TAG_NEW_ENTRY) {
+                    dictionary.add(value);
+                }
+                fields[i] = value;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Streams records into a new snapshot. The file only replaces the previous
+     * snapshot once commit() succeeds, so readers never see a partial snapshot.
+     */
+    public static class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileOutputStream file;
+        private final CheckedOutputStream checked;
+        private final DataOutputStream out;
+        private final boolean[] dictionaryColumns;
+        private final Map<String, Integer> dictionary;
+        private final ByteArrayOutputStream record;
+        private boolean committed;
+
+        /**
+         * Opens a snapshot writer
+         * @param snapshotFile The snapshot file to produce
+         * @param fingerprint Fingerprint of the text source being snapshotted
+         * @param delimiter Field delimiter of the text format
+         * @param dictionaryColumns Column indices whose values are dictionary-coded
+         */
+        public Writer(File snapshotFile, String fingerprint, char delimiter, int... dictionaryColumns) throws IOException {
+            this.target = snapshotFile.toPath();
+            this.temp = Paths.get(snapshotFile.getPath() + ".tmp");
+            this.file = new FileOutputStream(temp.toFile());
+            this.checked = new CheckedOutputStream(file, new CRC32());
+            this.out = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16));
+            int maxColumn = 0;
+            for (int column : dictionaryColumns) {
+                maxColumn = Math.max(maxColumn, column + 1);
+            }
+            this.dictionaryColumns = new boolean[maxColumn];
+            for (int column : dictionaryColumns) {
+                this.dictionaryColumns[column] = true;
+            }
+            this.dictionary = new HashMap<>();
+            this.record = new ByteArrayOutputStream(256);
+
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeString(out, fingerprint);
+            out.writeChar(delimiter);
+        }
+
+        /**
+         * Appends one record
+         * @param fields The record's fields in text column order
+         */
+        public void write(String[] fields) throws IOException {
+            record.reset();
+            writeVarInt(record, fields.length);
+            for (int i = 0; i < fields.length; i++) {
+                String value = fields[i] != null ? fields[i] : "";
+                if (i < dictionaryColumns.length && dictionaryColumns[i]) {
+                    Integer id = dictionary.get(value);
+                    if (id != null) {
+                        record.write(TAG_REFERENCE);
+                        writeVarInt(record, id);
+                        continue;
+                    }
+                    dictionary.put(value, dictionary.size());
+                    record.write(TAG_NEW_ENTRY);
+                } else {
+                    record.write(TAG_INLINE);
+                }
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(record, bytes.length);
+                record.write(bytes);
+            }
+            writeVarInt(out, record.size());
+            record.writeTo(out);
+        }
+
+        /**
+         * Finishes the snapshot with its checksum and atomically replaces the previous one
+         */
+        public void commit() throws IOException {
+            writeVarInt(out, 0); // End of records
+            out.flush();
+            // The checksum covers everything before it, so it bypasses the checked stream
+            new DataOutputStream(file).writeInt((int) checked.getChecksum().getValue());
+            ChecksummedFile.force(file.getChannel());
+            out.close();
+            committed = true;
+            ChecksummedFile.install(temp, target);
+        }
+
+        /**
+         * Discards the partial snapshot unless commit() was called
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int readVarInt(byte[] buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer[position[0]++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,240 @@
+package util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Crash-safe text files. A new generation is written to a temp file, followed by a
+ * "#crc32:checksum:length" trailer line covering everything before it, then atomically
+ * renamed over the live file. The generation it replaces is kept alongside as ".prev",
+ * so a loader that finds a damaged live file can fall back to it.
+ * Files without a trailer (written before checksums, or edited by hand) are trusted as is.
+ */
+public class ChecksummedFile {
+    private static final String TRAILER_PREFIX = "#crc32:";
+    private static final int MAX_TRAILER_LENGTH = 64;
+
+    /**
+     * When data is forced to disk, from -Dbtoms.fsync
+     */
+    public enum FsyncPolicy {
+        /** Leave flushing to the operating system */
+        NONE,
+        /** Force each new file before it is renamed into place (default) */
+        FILE,
+        /** Also force the directory so the rename itself is durable */
+        FULL;
+
+        public static FsyncPolicy current() {
+            String policy = System.getProperty("btoms.fsync", "file");
+            try {
+                return valueOf(policy.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return FILE;
+            }
+        }
+    }
+
+    /**
+     * Result of checking a file before loading it
+     * @param file The generation to read
+     * @param length Number of bytes of records, excluding the trailer
+     */
+    public record Verified(File file, long length) {
+    }
+
+    /**
+     * Picks the newest intact generation of a file
+     * @param file The live file
+     * @return The live file or its previous generation with the length of its records,
+     *         or null if neither exists
+     */
+    public static Verified verify(File file) {
+        File previous = previousGeneration(file);
+        long previousLength = previous.exists() ? checkedLength(previous) : -1;
+        if (!file.exists()) {
+            // A crash between retiring the old generation and installing the new one
+            return previousLength >= 0 ? new Verified(previous, previousLength) : null;
+        }
+
+        long length = checkedLength(file);
+        if (length >= 0) {
+            return new Verified(file, length);
+        }
+        if (previousLength >= 0) {
+            System.err.println("Checksum mismatch in " + file.getName() + ", loading previous generation");
+            return new Verified(previous, previousLength);
+        }
+        // Nothing better to offer; load what is there rather than nothing
+        System.err.println("Checksum mismatch in " + file.getName() + " and no intact previous generation");
+        return new Verified(file, trailerStart(file));
+    }
+
+    public static File previousGeneration(File file) {
+        return new File(file.getPath() + ".prev");
+    }
+
+    /**
+     * Checks a file's trailer against its contents
+     * @return The length of the records, or -1 if the checksum does not match
+     */
+    private static long checkedLength(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            String trailer = readTrailer(channel, size);
+            if (trailer == null) {
+                return size; // No trailer: an unchecked file
+            }
+            String[] parts = trailer.substring(TRAILER_PREFIX.length()).split(":");
+            long expectedCrc = Long.parseLong(parts[0], 16);
+            long length = Long.parseLong(parts[1]);
+            if (length != size - trailer.length() - 1) {
+                return -1;
+            }
+
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            long position = 0;
+            while (position < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return -1;
+                }
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+            return crc.getValue() == expectedCrc ? length : -1;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long trailerStart(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            String trailer = readTrailer(channel, channel.size());
+            return trailer == null ? channel.size() : channel.size() - trailer.length() - 1;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the last line of a file if it is a checksum trailer
+     */
+    private static String readTrailer(FileChannel channel, long size) throws IOException {
+        int tailLength = (int) Math.min(size, MAX_TRAILER_LENGTH);
+        ByteBuffer tail = ByteBuffer.allocate(tailLength);
+        channel.read(tail, size - tailLength);
+        String text = new String(tail.array(), 0, tailLength, StandardCharsets.US_ASCII);
+        if (!text.endsWith("\n")) {
+            return null;
+        }
+        int start = text.lastIndexOf('\n', text.length() - 2) + 1;
+        String line = text.substring(start, text.length() - 1);
+        return line.startsWith(TRAILER_PREFIX) ? line : null;
+    }
+
+    /**
+     * Forces a file's contents to disk if the fsync policy asks for it
+     * @param channel An open channel on the file
+     */
+    public static void force(FileChannel channel) throws IOException {
+        if (FsyncPolicy.current() != FsyncPolicy.NONE) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Atomically renames a finished temp file over its target, forcing the
+     * directory afterwards if the fsync policy asks for it
+     * @param temp The finished file
+     * @param target The file it replaces
+     */
+    public static void install(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (FsyncPolicy.current() == FsyncPolicy.FULL) {
+            Path directory = target.toAbsolutePath().getParent();
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Some platforms cannot open a directory for syncing
+            }
+        }
+    }
+
+    /**
+     * Writes a new generation of a text file. Nothing replaces the live file
+     * until commit() succeeds, so readers never see a partial file.
+     */
+    public static class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileOutputStream file;
+        private final CheckedOutputStream checked;
+        private final BufferedWriter out;
+        private boolean committed;
+
+        /**
+         * Opens a writer for the next generation of a file
+         * @param target The live file to replace
+         */
+        public Writer(File target) throws IOException {
+            this.target = target.toPath();
+            this.temp = Paths.get(target.getPath() + ".tmp");
+            this.file = new FileOutputStream(temp.toFile());
+            this.checked = new CheckedOutputStream(file, new CRC32());
+            this.out = new BufferedWriter(new OutputStreamWriter(checked, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        /**
+         * Appends one line
+         * @param line The line, without its line break
+         */
+        public void println(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+        }
+
+        /**
+         * Seals the file with its checksum trailer and installs it as the live file.
+         * The generation it replaces becomes the previous generation.
+         */
+        public void commit() throws IOException {
+            out.flush();
+            long length = file.getChannel().position();
+            String trailer = String.format("%s%08x:%d\n", TRAILER_PREFIX, checked.getChecksum().getValue(), length);
+            file.write(trailer.getBytes(StandardCharsets.US_ASCII));
+            force(file.getChannel());
+            out.close();
+            committed = true;
+
+            if (Files.exists(target)) {
+                install(target, previousGeneration(target.toFile()).toPath());
+            }
+            install(temp, target);
+        }
+
+        /**
+         * Discards the partial file unless commit() was called
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
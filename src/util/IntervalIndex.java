@@ -0,0 +1,114 @@
+package util;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Set of closed date intervals, each belonging to an owner, that answers
+ * "does anything overlap this period?" in O(log n) without allocating.
+ * Intervals are kept sorted by start day alongside a running maximum of end days:
+ * an overlap exists exactly when some interval starting on or before the query's
+ * end also ends on or after the query's start. Adding, moving and removing an
+ * interval shift the arrays, which is fine for the handful of changes per session.
+ * @param <T> Type of the interval owners, compared by identity
+ */
+public class IntervalIndex<T> {
+    private long[] starts;
+    private long[] ends;
+    private long[] maxEnds; // maxEnds[i] is the latest end among intervals 0..i
+    private Object[] owners;
+    private int size;
+
+    public IntervalIndex() {
+        this.starts = new long[4];
+        this.ends = new long[4];
+        this.maxEnds = new long[4];
+        this.owners = new Object[4];
+    }
+
+    /**
+     * Adds an owner's interval, replacing any interval it already has
+     * @param owner The owner
+     * @param start First day of the interval
+     * @param end Last day of the interval
+     */
+    public void put(T owner, LocalDate start, LocalDate end) {
+        remove(owner);
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            maxEnds = Arrays.copyOf(maxEnds, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+        }
+
+        long startDay = start.toEpochDay();
+        int position = upperBound(startDay);
+        System.arraycopy(starts, position, starts, position + 1, size - position);
+        System.arraycopy(ends, position, ends, position + 1, size - position);
+        System.arraycopy(owners, position, owners, position + 1, size - position);
+        starts[position] = startDay;
+        ends[position] = end.toEpochDay();
+        owners[position] = owner;
+        size++;
+        recomputeMaxEnds(position);
+    }
+
+    /**
+     * Removes an owner's interval
+     * @param owner The owner
+     * @return False if the owner had no interval
+     */
+    public boolean remove(T owner) {
+        for (int i = 0; i < size; i++) {
+            if (owners[i] == owner) {
+                System.arraycopy(starts, i + 1, starts, i, size - i - 1);
+                System.arraycopy(ends, i + 1, ends, i, size - i - 1);
+                System.arraycopy(owners, i + 1, owners, i, size - i - 1);
+                owners[--size] = null;
+                recomputeMaxEnds(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether any interval shares at least one day with a period
+     * @param start First day of the period
+     * @param end Last day of the period
+     */
+    public boolean overlaps(LocalDate start, LocalDate end) {
+        int candidates = upperBound(end.toEpochDay());
+        return candidates > 0 && maxEnds[candidates - 1] >= start.toEpochDay();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of intervals starting on or before a day
+     */
+    private int upperBound(long day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void recomputeMaxEnds(int from) {
+        long max = from > 0 ? maxEnds[from - 1] : Long.MIN_VALUE;
+        for (int i = from; i < size; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of log events with many producers and one consumer.
+ * Slots are preallocated and reused, so publishing an event allocates nothing; each
+ * slot carries a sequence number that tells producers and the consumer whose turn it is.
+ */
+public class LogRingBuffer {
+    /**
+     * One log event. Fields are written by the producer that claimed the slot and
+     * read by the consumer once the slot's sequence says it has been published.
+     */
+    public static final class Event {
+        public int kind;
+        public long timestamp;
+        public String first;
+        public String second;
+        public String third;
+    }
+
+    private final Event[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail;
+    private volatile long head;
+
+    /**
+     * Creates a ring buffer
+     * @param capacity Number of slots, rounded up to a power of two
+     */
+    public LogRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.events = new Event[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.tail = new AtomicLong();
+        this.head = 0;
+    }
+
+    /**
+     * Publishes an event if a slot is free
+     * @return False if the buffer is full
+     */
+    public boolean offer(int kind, long timestamp, String first, String second, String third) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    Event event = events[index];
+                    event.kind = kind;
+                    event.timestamp = timestamp;
+                    event.first = first;
+                    event.second = second;
+                    event.third = third;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                return false; // The consumer has not freed this slot yet
+            } else {
+                position = tail.get(); // Another producer claimed it first
+            }
+        }
+    }
+
+    /**
+     * Returns the next published event, or null if there is none. The event must be
+     * handed back with release() before the next call. Only the consumer thread may call this.
+     */
+    public Event peek() {
+        int index = (int) head & mask;
+        return sequences.get(index) == head + 1 ? events[index] : null;
+    }
+
+    /**
+     * Frees the slot of the event returned by peek() for reuse by producers
+     */
+    public void release() {
+        int index = (int) head & mask;
+        Event event = events[index];
+        event.first = null;
+        event.second = null;
+        event.third = null;
+        sequences.lazySet(index, head + events.length);
+        head++;
+    }
+
+    /**
+     * Number of events claimed by producers so far
+     */
+    public long published() {
+        return tail.get();
+    }
+
+    /**
+     * Number of events taken by the consumer so far
+     */
+    public long consumed() {
+        return head;
+    }
+}
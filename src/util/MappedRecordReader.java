@@ -0,0 +1,281 @@
+package util;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads delimited text records straight from a memory-mapped file.
+ * Records are tokenized in place on the mapped bytes; a String is only created
+ * when a caller asks for a field's text, so fields that are matched or parsed
+ * (enums, booleans, repeated names) never allocate.
+ */
+public class MappedRecordReader implements RecordFields, Closeable {
+    private static final long MAX_WINDOW = Integer.MAX_VALUE;
+    private static final Map<Class<?>, byte[][]> ENUM_NAMES = new HashMap<>();
+    private static final Map<Class<?>, Object[]> ENUM_CONSTANTS = new HashMap<>();
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final byte delimiter;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+    private int fieldCount;
+    private byte[] scratch;
+    private final RecordTokenizer fieldText;
+
+    /**
+     * Maps a file for reading
+     * @param file The text file to read
+     * @param delimiter The field delimiter, e.g. '|'
+     */
+    public MappedRecordReader(File file, char delimiter) throws IOException {
+        this(file, delimiter, file.length());
+    }
+
+    /**
+     * Maps the first part of a file for reading, e.g. the records before a checksum trailer
+     * @param file The text file to read
+     * @param delimiter The field delimiter, e.g. '|'
+     * @param length Number of bytes to read from the start of the file
+     */
+    public MappedRecordReader(File file, char delimiter, long length) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = Math.min(length, channel.size());
+        this.delimiter = (byte) delimiter;
+        this.fieldStarts = new int[16];
+        this.fieldEnds = new int[16];
+        this.scratch = new byte[64];
+        this.fieldText = new RecordTokenizer('\n');
+        this.windowStart = 0;
+        mapWindow();
+    }
+
+    /**
+     * Maps the next window of the file. Windows end on a line break so no
+     * record is split across two windows.
+     */
+    private void mapWindow() throws IOException {
+        long length = Math.min(MAX_WINDOW, fileSize - windowStart);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        position = 0;
+        if (windowStart + length < fileSize) {
+            int end = (int) length - 1;
+            while (end > 0 && window.get(end) != '\n') {
+                end--;
+            }
+            window.limit(end + 1);
+        }
+    }
+
+    /**
+     * Advances to the next non-empty record
+     * @return True if a record is available, false at end of file
+     */
+    public boolean nextRecord() throws IOException {
+        while (true) {
+            if (position >= window.limit()) {
+                long nextStart = windowStart + window.limit();
+                if (nextStart >= fileSize) {
+                    return false;
+                }
+                windowStart = nextStart;
+                mapWindow();
+            }
+
+            fieldCount = 0;
+            int fieldStart = position;
+            int limit = window.limit();
+            while (position < limit) {
+                byte b = window.get(position);
+                if (b == '\n') {
+                    break;
+                }
+                if (b == delimiter) {
+                    addField(fieldStart, position);
+                    fieldStart = position + 1;
+                }
+                position++;
+            }
+            int lineEnd = position;
+            if (lineEnd > fieldStart && window.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            addField(fieldStart, lineEnd);
+            position++; // Skip the line break
+
+            if (fieldCount > 1 || fieldEnds[0] > fieldStarts[0]) {
+                return true;
+            }
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    @Override
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Checks whether a field is missing or empty
+     * @param index The field index
+     * @return True if the record has no such field or the field is empty
+     */
+    @Override
+    public boolean isEmpty(int index) {
+        return index >= fieldCount || fieldEnds[index] == fieldStarts[index];
+    }
+
+    /**
+     * Materializes a field as a String
+     * @param index The field index
+     * @return The decoded field text
+     */
+    @Override
+    public String getString(int index) {
+        int length = fieldEnds[index] - fieldStarts[index];
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(fieldStarts[index], scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares a field against known bytes without creating a String
+     * @param index The field index
+     * @param expected The UTF-8 bytes to compare with
+     * @return True if the field holds exactly those bytes
+     */
+    public boolean fieldEquals(int index, byte[] expected) {
+        int start = fieldStarts[index];
+        if (fieldEnds[index] - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (window.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean fieldEquals(int index, CharSequence expected) {
+        int start = fieldStarts[index];
+        int length = fieldEnds[index] - start;
+        for (int i = 0; i < expected.length(); i++) {
+            char c = expected.charAt(i);
+            if (c >= 0x80) {
+                // Multi-byte text is compared in its encoded form
+                return fieldEquals(index, expected.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (i >= length || window.get(start + i) != c) {
+                return false;
+            }
+        }
+        return length == expected.length();
+    }
+
+    @Override
+    public int getInt(int index) {
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        boolean negative = end > start && window.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Not a number: " + getString(index));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Not a number: " + getString(index));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Out of range: " + getString(index));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Tokenizes one field's sub-fields. Unlike the other accessors this decodes the
+     * field into a String first, since sub-fields are read through a RecordTokenizer.
+     */
+    @Override
+    public RecordTokenizer subFields(int index, char subDelimiter) {
+        return fieldText.reset(getString(index)).subFields(0, subDelimiter);
+    }
+
+    /**
+     * Parses a field as "true" / "false" without creating a String
+     * @param index The field index
+     * @return True only if the field reads "true" (case-insensitive)
+     */
+    @Override
+    public boolean getBoolean(int index) {
+        int start = fieldStarts[index];
+        if (fieldEnds[index] - start != 4) {
+            return false;
+        }
+        return (window.get(start) | 0x20) == 't' && (window.get(start + 1) | 0x20) == 'r' &&
+               (window.get(start + 2) | 0x20) == 'u' && (window.get(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Looks up an enum constant by the field's name without creating a String
+     * @param index The field index
+     * @param type The enum class
+     * @return The matching constant
+     * @throws IllegalArgumentException If no constant has that name
+     */
+    @Override
+    public <E extends Enum<E>> E getEnum(int index, Class<E> type) {
+        byte[][] names = enumNames(type);
+        for (int i = 0; i < names.length; i++) {
+            if (fieldEquals(index, names[i])) {
+                return type.cast(ENUM_CONSTANTS.get(type)[i]);
+            }
+        }
+        throw new IllegalArgumentException("No " + type.getSimpleName() + " constant " + getString(index));
+    }
+
+    private static synchronized byte[][] enumNames(Class<? extends Enum<?>> type) {
+        byte[][] names = ENUM_NAMES.get(type);
+        if (names == null) {
+            Enum<?>[] constants = type.getEnumConstants();
+            names = new byte[constants.length][];
+            for (int i = 0; i < constants.length; i++) {
+                names[i] = constants[i].name().getBytes(StandardCharsets.US_ASCII);
+            }
+            ENUM_CONSTANTS.put(type, constants);
+            ENUM_NAMES.put(type, names);
+        }
+        return names;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
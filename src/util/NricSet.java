@@ -0,0 +1,171 @@
+package util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counted set of NRICs. Well-formed NRICs (a letter, seven digits and a letter) are
+ * packed into a long and kept in an open-addressing table of primitives, so neither
+ * lookups nor insertions box or hash a String. Anything else falls back to a HashMap.
+ * Each NRIC carries a count, so it stays a member until it has been removed as many
+ * times as it was added.
+ */
+public class NricSet {
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys; // 0 marks an empty slot
+    private int[] counts;
+    private int size;
+    private Map<String, Integer> irregular;
+
+    public NricSet() {
+        this.keys = new long[MIN_CAPACITY];
+        this.counts = new int[MIN_CAPACITY];
+    }
+
+    /**
+     * Adds one occurrence of an NRIC
+     * @param nric The NRIC
+     */
+    public void add(String nric) {
+        long key = encode(nric);
+        if (key == 0) {
+            if (irregular == null) {
+                irregular = new HashMap<>();
+            }
+            irregular.merge(nric, 1, Integer::sum);
+            return;
+        }
+
+        int slot = find(key);
+        if (keys[slot] == key) {
+            counts[slot]++;
+            return;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (++size * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes one occurrence of an NRIC
+     * @param nric The NRIC
+     * @return False if it was not a member
+     */
+    public boolean remove(String nric) {
+        long key = encode(nric);
+        if (key == 0) {
+            Integer count = irregular != null ? irregular.get(nric) : null;
+            if (count == null) {
+                return false;
+            }
+            if (count > 1) {
+                irregular.put(nric, count - 1);
+            } else {
+                irregular.remove(nric);
+            }
+            return true;
+        }
+
+        int slot = find(key);
+        if (keys[slot] != key) {
+            return false;
+        }
+        if (--counts[slot] == 0) {
+            delete(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether an NRIC has been added more times than removed
+     * @param nric The NRIC
+     */
+    public boolean contains(String nric) {
+        long key = encode(nric);
+        if (key == 0) {
+            return irregular != null && irregular.containsKey(nric);
+        }
+        return keys[find(key)] == key;
+    }
+
+    /**
+     * Packs a well-formed NRIC into a non-zero long
+     * @return The packed NRIC, or 0 if it is not well-formed
+     */
+    static long encode(String nric) {
+        if (nric == null || nric.length() != 9) {
+            return 0;
+        }
+        char prefix = nric.charAt(0);
+        char suffix = nric.charAt(8);
+        if (prefix < 'A' || prefix > 'Z' || suffix < 'A' || suffix > 'Z') {
+            return 0;
+        }
+        long digits = 0;
+        for (int i = 1; i < 8; i++) {
+            char c = nric.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            digits = digits * 10 + (c - '0');
+        }
+        return ((prefix - 'A') * 10_000_000L + digits) * 26 + (suffix - 'A') + 1;
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it would go
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Empties a slot, shifting back later entries of the same probe run so lookups never stop early
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != 0) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry into the hole unless its home lies cyclically within (hole, next]
+            boolean stays = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+            if (!stays) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0;
+        counts[hole] = 0;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package util;
+
+/**
+ * Read access to the fields of one delimited record, shared by the in-place
+ * tokenizers so loaders can decode a record the same way whatever it was read from.
+ */
+public interface RecordFields {
+    int getFieldCount();
+
+    /**
+     * Checks whether a field is missing or empty
+     * @param index The field index
+     * @return True if the record has no such field or the field is empty
+     */
+    boolean isEmpty(int index);
+
+    /**
+     * Materializes a field as a String
+     * @param index The field index
+     * @return The field text
+     */
+    String getString(int index);
+
+    /**
+     * Compares a field against known text without creating a String
+     * @param index The field index
+     * @param expected The text to compare with
+     * @return True if the field holds exactly that text
+     */
+    boolean fieldEquals(int index, CharSequence expected);
+
+    /**
+     * Parses a field as a decimal int without creating a String
+     * @param index The field index
+     * @return The parsed value
+     * @throws NumberFormatException If the field is not a valid int
+     */
+    int getInt(int index);
+
+    /**
+     * Parses a field as "true" / "false" without creating a String
+     * @param index The field index
+     * @return True only if the field reads "true" (case-insensitive)
+     */
+    boolean getBoolean(int index);
+
+    /**
+     * Looks up an enum constant by the field's name without creating a String
+     * @param index The field index
+     * @param type The enum class
+     * @return The matching constant
+     * @throws IllegalArgumentException If no constant has that name
+     */
+    <E extends Enum<E>> E getEnum(int index, Class<E> type);
+
+    /**
+     * Tokenizes one field's sub-fields, e.g. "TWO_ROOM:10,THREE_ROOM:5"
+     * @param index The field index
+     * @param subDelimiter The delimiter inside the field
+     * @return A tokenizer over the field's sub-fields, reused by the next call
+     */
+    RecordTokenizer subFields(int index, char subDelimiter);
+
+    /**
+     * Materializes a field, reusing a previously read String when the text is the same.
+     * Useful for columns such as project names that repeat across consecutive records.
+     * @param index The field index
+     * @param previous The String read from the previous record, or null
+     * @return The previous String if the field matches it, otherwise the field text
+     */
+    default String getString(int index, String previous) {
+        return previous != null && fieldEquals(index, previous) ? previous : getString(index);
+    }
+}
@@ -0,0 +1,279 @@
+package util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reusable tokenizer for delimited text records.
+ * A record is split in place by remembering where each field starts and ends; no
+ * substrings or arrays are created per record. Numbers, booleans and enum constants
+ * are parsed straight from the characters, and a String is only created when a
+ * caller asks for a field's text. Nested sub-fields (e.g. "TWO_ROOM:10,THREE_ROOM:5")
+ * are read by pointing a second tokenizer at a field's range.
+ */
+public class RecordTokenizer implements RecordFields {
+    private static final Map<Class<?>, Enum<?>[]> ENUM_CONSTANTS = new HashMap<>();
+
+    private final char delimiter;
+    private CharSequence[] sources;
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+    private int fieldCount;
+    private RecordTokenizer[] children = new RecordTokenizer[0];
+
+    /**
+     * Creates a tokenizer for one delimiter
+     * @param delimiter The field delimiter, e.g. '|', ',' or ':'
+     */
+    public RecordTokenizer(char delimiter) {
+        this.delimiter = delimiter;
+        this.sources = new CharSequence[16];
+        this.fieldStarts = new int[16];
+        this.fieldEnds = new int[16];
+    }
+
+    /**
+     * Tokenizes a whole line
+     * @param text The record text
+     * @return This tokenizer, for chaining
+     */
+    public RecordTokenizer reset(CharSequence text) {
+        return reset(text, 0, text.length());
+    }
+
+    /**
+     * Tokenizes part of a line, such as one field of an enclosing record
+     * @param text The text holding the record
+     * @param start Index of the record's first character
+     * @param end Index just past the record's last character
+     * @return This tokenizer, for chaining
+     */
+    public RecordTokenizer reset(CharSequence text, int start, int end) {
+        fieldCount = 0;
+        if (end > start && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == delimiter) {
+                addField(text, fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(text, fieldStart, end);
+        return this;
+    }
+
+    /**
+     * Uses fields that were already split, e.g. by a binary snapshot reader
+     * @param fields The record's fields in column order
+     * @return This tokenizer, for chaining
+     */
+    public RecordTokenizer reset(String[] fields) {
+        return reset(fields, 0);
+    }
+
+    /**
+     * Uses fields that were already split, skipping a leading prefix
+     * @param fields The record's fields in column order
+     * @param offset Number of leading fields to skip
+     * @return This tokenizer, for chaining
+     */
+    public RecordTokenizer reset(String[] fields, int offset) {
+        fieldCount = 0;
+        for (int i = offset; i < fields.length; i++) {
+            addField(fields[i], 0, fields[i].length());
+        }
+        return this;
+    }
+
+    private void addField(CharSequence source, int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            sources = Arrays.copyOf(sources, fieldCount * 2);
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        sources[fieldCount] = source;
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    @Override
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Checks whether a field is missing or empty
+     * @param index The field index
+     * @return True if the record has no such field or the field is empty
+     */
+    @Override
+    public boolean isEmpty(int index) {
+        return index >= fieldCount || fieldEnds[index] == fieldStarts[index];
+    }
+
+    /**
+     * Materializes a field as a String
+     * @param index The field index
+     * @return The field text
+     */
+    @Override
+    public String getString(int index) {
+        CharSequence source = sources[index];
+        if (source instanceof String && fieldStarts[index] == 0 && fieldEnds[index] == source.length()) {
+            return (String) source;
+        }
+        return source.subSequence(fieldStarts[index], fieldEnds[index]).toString();
+    }
+
+    /**
+     * Compares a field against known text without creating a String
+     * @param index The field index
+     * @param expected The text to compare with
+     * @return True if the field holds exactly that text
+     */
+    @Override
+    public boolean fieldEquals(int index, CharSequence expected) {
+        return regionEquals(sources[index], fieldStarts[index], fieldEnds[index], expected);
+    }
+
+    /**
+     * Parses a field as a decimal int without creating a String
+     * @param index The field index
+     * @return The parsed value
+     * @throws NumberFormatException If the field is not a valid int
+     */
+    @Override
+    public int getInt(int index) {
+        return parseInt(sources[index], fieldStarts[index], fieldEnds[index]);
+    }
+
+    /**
+     * Parses a field as "true" / "false" without creating a String
+     * @param index The field index
+     * @return True only if the field reads "true" (case-insensitive)
+     */
+    @Override
+    public boolean getBoolean(int index) {
+        CharSequence source = sources[index];
+        int start = fieldStarts[index];
+        if (fieldEnds[index] - start != 4) {
+            return false;
+        }
+        return (source.charAt(start) | 0x20) == 't' && (source.charAt(start + 1) | 0x20) == 'r' &&
+               (source.charAt(start + 2) | 0x20) == 'u' && (source.charAt(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Looks up an enum constant by the field's name without creating a String
+     * @param index The field index
+     * @param type The enum class
+     * @return The matching constant
+     * @throws IllegalArgumentException If no constant has that name
+     */
+    @Override
+    public <E extends Enum<E>> E getEnum(int index, Class<E> type) {
+        return lookupEnum(type, sources[index], fieldStarts[index], fieldEnds[index]);
+    }
+
+    /**
+     * Tokenizes one field's sub-fields in place. One tokenizer is kept per sub-delimiter and
+     * reused by the next call with that delimiter, so read it fully before asking again.
+     * @param index The field index
+     * @param subDelimiter The delimiter inside the field, e.g. ',' or ':'
+     * @return A tokenizer over the field's sub-fields
+     */
+    @Override
+    public RecordTokenizer subFields(int index, char subDelimiter) {
+        RecordTokenizer child = null;
+        for (RecordTokenizer candidate : children) {
+            if (candidate.delimiter == subDelimiter) {
+                child = candidate;
+                break;
+            }
+        }
+        if (child == null) {
+            child = new RecordTokenizer(subDelimiter);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+        }
+        return child.reset(sources[index], fieldStarts[index], fieldEnds[index]);
+    }
+
+    /**
+     * Parses a decimal int from a range of characters
+     * @param text The text holding the number
+     * @param start Index of the first character
+     * @param end Index just past the last character
+     * @return The parsed value
+     * @throws NumberFormatException If the range is not a valid int
+     */
+    public static int parseInt(CharSequence text, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = text.charAt(start) == '-';
+        int i = negative || text.charAt(start) == '+' ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("No digits in " + text.subSequence(start, end));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number: " + text.subSequence(start, end));
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Out of range: " + text.subSequence(start, end));
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Out of range: " + text.subSequence(start, end));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Looks up an enum constant by name from a range of characters
+     * @param type The enum class
+     * @param text The text holding the name
+     * @param start Index of the first character
+     * @param end Index just past the last character
+     * @return The matching constant
+     * @throws IllegalArgumentException If no constant has that name
+     */
+    public static <E extends Enum<E>> E lookupEnum(Class<E> type, CharSequence text, int start, int end) {
+        for (Enum<?> constant : enumConstants(type)) {
+            if (regionEquals(text, start, end, constant.name())) {
+                return type.cast(constant);
+            }
+        }
+        throw new IllegalArgumentException("No " + type.getSimpleName() + " constant " + text.subSequence(start, end));
+    }
+
+    private static synchronized Enum<?>[] enumConstants(Class<? extends Enum<?>> type) {
+        Enum<?>[] constants = ENUM_CONSTANTS.get(type);
+        if (constants == null) {
+            constants = type.getEnumConstants();
+            ENUM_CONSTANTS.put(type, constants);
+        }
+        return constants;
+    }
+
+    private static boolean regionEquals(CharSequence text, int start, int end, CharSequence expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of reentrant locks handed out by key. A key always maps to the same lock,
+ * so keys on different stripes never contend, while the number of locks stays bounded
+ * however many keys there are. Two keys can share a stripe; that only costs some
+ * contention, never correctness.
+ * Several keys are locked together in stripe order, so callers locking overlapping
+ * sets of keys cannot deadlock each other.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates the pool
+     * @param count Number of locks, rounded up to a power of two
+     */
+    public StripedLocks(int count) {
+        int size = Integer.highestOneBit(Math.max(1, count - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of the given keys, each stripe once
+     * @param keys The keys; null keys are skipped
+     * @return The held locks, to release with unlock() in a finally block
+     */
+    public Held lock(Object... keys) {
+        int[] indexes = new int[keys.length];
+        int count = 0;
+        for (Object key : keys) {
+            if (key != null) {
+                indexes[count++] = stripeOf(key);
+            }
+        }
+        Arrays.sort(indexes, 0, count);
+
+        ReentrantLock[] held = new ReentrantLock[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                held[size] = stripes[indexes[i]];
+                held[size++].lock();
+            }
+        }
+        return new Held(held, size);
+    }
+
+    private int stripeOf(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return (h * 0x9E3779B9) >>> 16 & (stripes.length - 1);
+    }
+
+    /**
+     * Locks taken together by lock()
+     */
+    public static final class Held {
+        private final ReentrantLock[] locks;
+        private final int size;
+
+        private Held(ReentrantLock[] locks, int size) {
+            this.locks = locks;
+            this.size = size;
+        }
+
+        /**
+         * Releases the locks in reverse order of acquisition
+         */
+        public void unlock() {
+            for (int i = size - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+}
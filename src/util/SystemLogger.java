@@ -1,32 +1,87 @@
 package util;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Utility class for logging system events
+ * Utility class for logging system events.
+ * Callers only drop an event into a lock-free ring buffer; a background writer thread
+ * formats events and appends them in batches to log files it keeps open. When the
+ * buffer is full, -Dbtoms.log.overflow decides what happens: "block" (default) waits
+ * for space, "drop" discards the event, and "sample" keeps one in every
+ * -Dbtoms.log.sampleRate events (default 16) and discards the rest. Dropped events
+ * are counted in the log. Pending events are written out when the program exits.
  */
 public class SystemLogger {
     private static final String LOG_DIRECTORY = "database/logs/";
     private static final String USER_LOG_FILE = LOG_DIRECTORY + "user_activity.log";
+    private static final String SYSTEM_LOG_FILE = LOG_DIRECTORY + "system.log";
     private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    
+
+    private static final int LOGIN = 0;
+    private static final int LOGOUT = 1;
+    private static final int STARTUP = 2;
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+
+    private enum OverflowPolicy { BLOCK, DROP, SAMPLE }
+
+    private static final LogRingBuffer BUFFER = new LogRingBuffer(Integer.getInteger("btoms.log.capacity", 4096));
+    private static final OverflowPolicy OVERFLOW = overflowPolicy();
+    private static final int SAMPLE_RATE = Math.max(1, Integer.getInteger("btoms.log.sampleRate", 16));
+    private static final AtomicLong overflowed = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile long written;
+    private static volatile boolean stopping;
+    private static FileChannel userLog;
+    private static FileChannel systemLog;
+    private static final Thread writer;
+    private static long lastSecond = -1;
+    private static String lastTimestamp;
+
     /**
-     * Initializes the logger by ensuring the log directory exists
+     * Initializes the logger by ensuring the log directory exists and starting the writer thread
      */
     static {
         try {
             Files.createDirectories(Paths.get(LOG_DIRECTORY));
+            userLog = openLog(USER_LOG_FILE);
+            systemLog = openLog(SYSTEM_LOG_FILE);
         } catch (IOException e) {
-            System.err.println("Failed to create log directory: " + e.getMessage());
+            System.err.println("Failed to open log files: " + e.getMessage());
         }
+
+        writer = new Thread(SystemLogger::writeLoop, "btoms-logger");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(SystemLogger::shutdown, "btoms-logger-flush"));
+    }
+
+    private static FileChannel openLog(String logFile) throws IOException {
+        return FileChannel.open(Paths.get(logFile),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
     }
-    
+
+    private static OverflowPolicy overflowPolicy() {
+        try {
+            return OverflowPolicy.valueOf(System.getProperty("btoms.log.overflow", "block").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return OverflowPolicy.BLOCK;
+        }
+    }
+
     /**
      * Logs a user login event
      * @param userId User ID (NRIC)
@@ -34,12 +89,9 @@ public class SystemLogger {
      * @param userType Type of user (Applicant, HDBManager, HDBOfficer)
      */
     public static void logLogin(String userId, String userName, String userType) {
-        String timestamp = LocalDateTime.now().format(DATE_TIME_FORMAT);
-        String logMessage = String.format("%s | LOGIN | User: %s (%s) | Type: %s", 
-                timestamp, userName, userId, userType);
-        writeLog(logMessage);
+        publish(LOGIN, userId, userName, userType);
     }
-    
+
     /**
      * Logs a user logout event
      * @param userId User ID (NRIC)
@@ -47,21 +99,151 @@ public class SystemLogger {
      * @param userType Type of user (Applicant, HDBManager, HDBOfficer)
      */
     public static void logLogout(String userId, String userName, String userType) {
-        String timestamp = LocalDateTime.now().format(DATE_TIME_FORMAT);
-        String logMessage = String.format("%s | LOGOUT | User: %s (%s) | Type: %s", 
-                timestamp, userName, userId, userType);
-        writeLog(logMessage);
+        publish(LOGOUT, userId, userName, userType);
+    }
+
+    /**
+     * Logs the per-phase timings of the startup data load
+     * @param timings Elapsed milliseconds for each phase
+     */
+    public static void logStartup(Map<String, Long> timings) {
+        StringBuilder phases = new StringBuilder();
+        for (Map.Entry<String, Long> entry : timings.entrySet()) {
+            if (phases.length() > 0) phases.append(", ");
+            phases.append(entry.getKey()).append("=").append(entry.getValue()).append("ms");
+        }
+        publish(STARTUP, phases.toString(), null, null);
+    }
+
+    /**
+     * Blocks until every event logged before this call has been written to its file
+     */
+    public static void flush() {
+        long target = BUFFER.published();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+
+    /**
+     * Hands an event to the writer thread, applying the overflow policy if the buffer is full
+     */
+    private static void publish(int kind, String first, String second, String third) {
+        long timestamp = System.currentTimeMillis();
+        if (BUFFER.offer(kind, timestamp, first, second, third)) {
+            return;
+        }
+
+        if (OVERFLOW == OverflowPolicy.DROP ||
+            (OVERFLOW == OverflowPolicy.SAMPLE && overflowed.incrementAndGet() % SAMPLE_RATE != 0)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        while (!BUFFER.offer(kind, timestamp, first, second, third)) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(10_000L);
+        }
     }
-    
+
+    /**
+     * Drains the ring buffer in batches until shutdown, parking briefly whenever it is empty
+     */
+    private static void writeLoop() {
+        StringBuilder userBatch = new StringBuilder();
+        StringBuilder systemBatch = new StringBuilder();
+        long reportedDrops = 0;
+
+        while (true) {
+            int count = 0;
+            LogRingBuffer.Event event;
+            while (count < BATCH_SIZE && (event = BUFFER.peek()) != null) {
+                format(event, event.kind == STARTUP ? systemBatch : userBatch);
+                BUFFER.release();
+                count++;
+            }
+
+            long drops = dropped.get();
+            if (drops > reportedDrops) {
+                userBatch.append(timestamp(System.currentTimeMillis()))
+                    .append(" | DROPPED | ").append(drops - reportedDrops).append(" events\n");
+                reportedDrops = drops;
+            }
+
+            write(userLog, userBatch);
+            write(systemLog, systemBatch);
+            written = BUFFER.consumed();
+
+            if (count == 0) {
+                if (stopping && BUFFER.consumed() == BUFFER.published()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private static void format(LogRingBuffer.Event event, StringBuilder batch) {
+        batch.append(timestamp(event.timestamp));
+        if (event.kind == STARTUP) {
+            batch.append(" | STARTUP | ").append(event.first);
+        } else {
+            batch.append(event.kind == LOGIN ? " | LOGIN | User: " : " | LOGOUT | User: ")
+                .append(event.second).append(" (").append(event.first).append(") | Type: ").append(event.third);
+        }
+        batch.append('\n');
+    }
+
     /**
-     * Writes a log message to the user activity log file
-     * @param message Log message to write
+     * Formats a timestamp, reusing the previous text while the second has not changed.
+     * Only the writer thread calls this.
      */
-    private static void writeLog(String message) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USER_LOG_FILE, true))) {
-            writer.println(message);
+    private static String timestamp(long millis) {
+        long second = millis / 1000;
+        if (second != lastSecond) {
+            lastSecond = second;
+            lastTimestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault())
+                .format(DATE_TIME_FORMAT);
+        }
+        return lastTimestamp;
+    }
+
+    /**
+     * Appends a batch of formatted lines to a log file with a single write
+     */
+    private static void write(FileChannel logFile, StringBuilder batch) {
+        if (batch.length() == 0) {
+            return;
+        }
+        if (logFile != null) {
+            try {
+                ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    logFile.write(bytes);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to write to log file: " + e.getMessage());
+            }
+        }
+        batch.setLength(0);
+    }
+
+    /**
+     * Writes out everything still buffered when the program exits
+     */
+    private static void shutdown() {
+        stopping = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (userLog != null) userLog.close();
+            if (systemLog != null) systemLog.close();
         } catch (IOException e) {
-            System.err.println("Failed to write to log file: " + e.getMessage());
+            System.err.println("Failed to close log files: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
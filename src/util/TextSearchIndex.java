@@ -0,0 +1,276 @@
+package util;
+
+import java.util.*;
+
+/**
+ * Incremental full-text index ranking documents by BM25. Each document is one or more
+ * texts (for an enquiry, its question and reply) split into case-folded words, with
+ * common English stop-words left out. Every word keeps a postings list of the documents
+ * containing it and how often, held in primitive arrays.
+ * Documents get increasing ids. A removed or re-indexed document leaves its old postings
+ * behind as dead entries that searches skip, and all lists are compacted once dead
+ * entries outnumber live ones. Scores are accumulated in an array reused between
+ * searches, so a query only touches the postings of its own words.
+ * @param <T> Type of the indexed documents, compared by identity
+ */
+public class TextSearchIndex<T> {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_COMPACT_SIZE = 1024;
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "do", "does", "for", "from",
+        "has", "have", "how", "i", "if", "in", "is", "it", "its", "me", "my", "no", "not", "of", "on",
+        "or", "so", "that", "the", "there", "this", "to", "was", "we", "what", "when", "where", "which",
+        "will", "with", "would", "you", "your");
+
+    /**
+     * Documents containing one word, with the word's frequency in each
+     */
+    private static final class Postings {
+        int[] docIds = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+        int live; // Entries whose document is still indexed, i.e. the document frequency
+
+        void add(int docId, int frequency) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docIds[size] = docId;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+    }
+
+    private final Map<String, Postings> postings;
+    private final Map<T, Integer> idsByDoc;
+    private Object[] docs; // By id; null once removed
+    private String[][] docTerms; // Distinct words of each document, by id
+    private int[] lengths; // Number of indexed words of each document, by id
+    private int nextId;
+    private int liveDocs;
+    private long totalLength;
+    private float[] scores;
+    private int[] touched;
+
+    public TextSearchIndex() {
+        this.postings = new HashMap<>();
+        this.idsByDoc = new IdentityHashMap<>();
+        this.docs = new Object[16];
+        this.docTerms = new String[16][];
+        this.lengths = new int[16];
+        this.scores = new float[16];
+        this.touched = new int[16];
+    }
+
+    /**
+     * Indexes a document, replacing its previous texts if it was already indexed
+     * @param doc The document
+     * @param texts Its texts; null entries are skipped
+     */
+    public void put(T doc, String... texts) {
+        remove(doc);
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String text : texts) {
+            for (String word : TokenIndex.tokenize(text)) {
+                if (!STOP_WORDS.contains(word)) {
+                    frequencies.merge(word, 1, Integer::sum);
+                    length++;
+                }
+            }
+        }
+
+        if (nextId == docs.length) {
+            int capacity = docs.length * 2;
+            docs = Arrays.copyOf(docs, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int id = nextId++;
+        docs[id] = doc;
+        lengths[id] = length;
+        String[] terms = new String[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings list = postings.computeIfAbsent(entry.getKey(), word -> new Postings());
+            list.add(id, entry.getValue());
+            terms[i++] = entry.getKey();
+        }
+        docTerms[id] = terms;
+        idsByDoc.put(doc, id);
+        liveDocs++;
+        totalLength += length;
+    }
+
+    /**
+     * Removes a document from the index
+     * @param doc The document
+     */
+    public void remove(T doc) {
+        Integer id = idsByDoc.remove(doc);
+        if (id == null) {
+            return;
+        }
+        for (String term : docTerms[id]) {
+            Postings list = postings.get(term);
+            if (--list.live == 0) {
+                postings.remove(term);
+            }
+        }
+        docs[id] = null;
+        docTerms[id] = null;
+        liveDocs--;
+        totalLength -= lengths[id];
+        if (nextId >= MIN_COMPACT_SIZE && nextId > 2 * liveDocs) {
+            compact();
+        }
+    }
+
+    public int size() {
+        return liveDocs;
+    }
+
+    /**
+     * Finds the documents best matching a query
+     * @param query Words to look for; a document needs at least one of them
+     * @param limit Maximum number of hits
+     * @return The hits, best first
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> search(String query, int limit) {
+        if (liveDocs == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (scores.length < nextId) {
+            scores = new float[docs.length];
+            touched = new int[docs.length];
+        }
+
+        double averageLength = Math.max(1.0, (double) totalLength / liveDocs);
+        int touchedCount = 0;
+        Set<String> seen = new HashSet<>();
+        for (String word : TokenIndex.tokenize(query)) {
+            Postings list = postings.get(word);
+            if (list == null || STOP_WORDS.contains(word) || !seen.add(word)) {
+                continue;
+            }
+            double idf = Math.log(1 + (liveDocs - list.live + 0.5) / (list.live + 0.5));
+            for (int i = 0; i < list.size; i++) {
+                int id = list.docIds[i];
+                if (docs[id] == null) {
+                    continue; // Removed or re-indexed document
+                }
+                int frequency = list.frequencies[i];
+                double norm = K1 * (1 - B + B * lengths[id] / averageLength);
+                if (scores[id] == 0) {
+                    touched[touchedCount++] = id;
+                }
+                scores[id] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+            }
+        }
+
+        // Keep the best hits in a min-heap of ids whose root is the weakest hit kept so far
+        int[] heap = new int[Math.min(limit, touchedCount)];
+        int heapSize = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            if (heapSize < heap.length) {
+                heap[heapSize] = id;
+                siftUp(heap, heapSize++);
+            } else if (weaker(heap[0], id)) {
+                heap[0] = id;
+                siftDown(heap, heapSize);
+            }
+        }
+        T[] hits = (T[]) new Object[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            hits[i] = (T) docs[heap[0]];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            scores[touched[i]] = 0;
+        }
+        return new ArrayList<>(Arrays.asList(hits));
+    }
+
+    /**
+     * Orders hits by score, breaking ties in favour of the earlier document
+     */
+    private boolean weaker(int x, int y) {
+        return scores[x] != scores[y] ? scores[x] < scores[y] : x > y;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!weaker(heap[index], heap[parent])) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[parent];
+            heap[parent] = swap;
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && weaker(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!weaker(heap[child], heap[index])) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[child];
+            heap[child] = swap;
+            index = child;
+        }
+    }
+
+    /**
+     * Renumbers the live documents from 0 and drops dead postings
+     */
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        int[] newIds = new int[nextId];
+        int next = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (docs[id] != null) {
+                newIds[id] = next;
+                docs[next] = docs[id];
+                docTerms[next] = docTerms[id];
+                lengths[next] = lengths[id];
+                idsByDoc.put((T) docs[id], next);
+                next++;
+            } else {
+                newIds[id] = -1;
+            }
+        }
+        Arrays.fill(docs, next, nextId, null);
+        Arrays.fill(docTerms, next, nextId, null);
+        for (Postings list : postings.values()) {
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int id = newIds[list.docIds[i]];
+                if (id >= 0) {
+                    list.docIds[size] = id;
+                    list.frequencies[size] = list.frequencies[i];
+                    size++;
+                }
+            }
+            list.size = size;
+        }
+        nextId = next;
+    }
+}
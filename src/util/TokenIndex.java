@@ -0,0 +1,147 @@
+package util;
+
+import java.util.*;
+
+/**
+ * Inverted index from the words of a short text, such as a neighborhood name, to the
+ * objects carrying that text. Words are case-folded and split on anything that is not
+ * a letter or digit. Every word of a query has to match a word of the text, either as a
+ * prefix ("Jurong W" finds "Jurong West") or, when edits are allowed, as a prefix within
+ * that many insertions, deletions or substitutions ("Pungol" finds "Punggol").
+ * Prefix queries are range lookups in the sorted vocabulary; fuzzy queries walk the
+ * vocabulary of distinct words, never the indexed objects.
+ * @param <T> Type of the indexed objects, compared by identity
+ */
+public class TokenIndex<T> {
+    private final TreeMap<String, Set<T>> postings;
+    private final Map<T, String[]> tokensByOwner;
+
+    public TokenIndex() {
+        this.postings = new TreeMap<>();
+        this.tokensByOwner = new IdentityHashMap<>();
+    }
+
+    /**
+     * Indexes an object under the words of a text, replacing what it was indexed under before
+     * @param owner The object
+     * @param text The text to index it by
+     */
+    public void put(T owner, String text) {
+        remove(owner);
+        String[] tokens = tokenize(text);
+        tokensByOwner.put(owner, tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new LinkedHashSet<>()).add(owner);
+        }
+    }
+
+    /**
+     * Removes an object from the index
+     * @param owner The object
+     */
+    public void remove(T owner) {
+        String[] tokens = tokensByOwner.remove(owner);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<T> owners = postings.get(token);
+            owners.remove(owner);
+            if (owners.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Finds the objects whose text matches every word of a query
+     * @param query The words to look for
+     * @param maxEdits Edits allowed per word; 0 for prefix matches only
+     * @return The matching objects, empty if the query has no words
+     */
+    public Set<T> search(String query, int maxEdits) {
+        String[] words = tokenize(query);
+        Set<T> matches = null;
+        for (String word : words) {
+            Set<T> wordMatches = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (maxEdits <= 0) {
+                for (Set<T> owners : postings.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+                    wordMatches.addAll(owners);
+                }
+            } else {
+                for (Map.Entry<String, Set<T>> entry : postings.entrySet()) {
+                    if (entry.getKey().length() >= word.length() - maxEdits &&
+                        prefixEditDistance(word, entry.getKey(), maxEdits) <= maxEdits) {
+                        wordMatches.addAll(entry.getValue());
+                    }
+                }
+            }
+
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.retainAll(wordMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        return matches != null ? matches : Collections.emptySet();
+    }
+
+    /**
+     * Splits a text into case-folded words
+     */
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Smallest edit distance between a word and any prefix of a token, giving up
+     * early once every alignment needs more than the allowed edits
+     * @return The distance, or maxEdits + 1 if it exceeds maxEdits
+     */
+    static int prefixEditDistance(String word, String token, int maxEdits) {
+        int[] previous = new int[token.length() + 1];
+        int[] current = new int[token.length() + 1];
+        for (int j = 0; j <= token.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= word.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= token.length(); j++) {
+                int substitution = previous[j - 1] + (word.charAt(i - 1) == token.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        // The word is fully consumed; the rest of the token is an untyped suffix
+        int best = maxEdits + 1;
+        for (int distance : previous) {
+            best = Math.min(best, distance);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,87 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Pools of interchangeable units, one pool per slot (e.g. per flat type), that callers
+ * reserve and release without locking. Each slot counts its free units, and a reservation
+ * is a compare-and-set from n to n - 1 that fails instead of going below zero, so a slot
+ * never hands out more units than its capacity however many threads race for the last one.
+ * Slots sit a cache line apart so threads reserving different slots do not slow each other down.
+ */
+public class UnitReservations {
+    private static final int STRIDE = 16; // Ints per 64-byte cache line
+
+    private final AtomicIntegerArray free;
+    private final int[] capacities;
+
+    /**
+     * Creates the pools with every unit free
+     * @param capacities Number of units of each slot
+     */
+    public UnitReservations(int[] capacities) {
+        this.capacities = capacities.clone();
+        this.free = new AtomicIntegerArray(capacities.length * STRIDE);
+        for (int slot = 0; slot < capacities.length; slot++) {
+            free.set(slot * STRIDE, capacities[slot]);
+        }
+    }
+
+    /**
+     * Takes one unit of a slot if any is free
+     * @param slot The slot
+     * @return False if every unit of the slot is reserved
+     */
+    public boolean tryReserve(int slot) {
+        int index = slot * STRIDE;
+        int current;
+        do {
+            current = free.get(index);
+            if (current <= 0) {
+                return false;
+            }
+        } while (!free.compareAndSet(index, current, current - 1));
+        return true;
+    }
+
+    /**
+     * Gives back one reserved unit of a slot
+     * @param slot The slot
+     * @return False if no unit of the slot was reserved
+     */
+    public boolean release(int slot) {
+        int index = slot * STRIDE;
+        int current;
+        do {
+            current = free.get(index);
+            if (current >= capacities[slot]) {
+                return false;
+            }
+        } while (!free.compareAndSet(index, current, current + 1));
+        return true;
+    }
+
+    /**
+     * Gets the number of free units of a slot
+     */
+    public int available(int slot) {
+        return free.get(slot * STRIDE);
+    }
+
+    /**
+     * Gets the number of reserved units of a slot
+     */
+    public int reserved(int slot) {
+        return capacities[slot] - available(slot);
+    }
+
+    /**
+     * Overwrites how many units of a slot are reserved, e.g. after recounting them.
+     * Reservations racing with this call may be lost, so callers must keep them out.
+     * @param slot The slot
+     * @param reserved The number of reserved units, clamped to the slot's capacity
+     */
+    public void setReserved(int slot, int reserved) {
+        free.set(slot * STRIDE, capacities[slot] - Math.min(Math.max(reserved, 0), capacities[slot]));
+    }
+}
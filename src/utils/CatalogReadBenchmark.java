@@ -0,0 +1,177 @@
+package utils;
+
+import control.ProjectManager;
+import entity.BTOProject;
+import entity.HDBManager;
+import enums.FlatType;
+import enums.MaritalStatus;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Measures browsing the project catalog while one thread keeps toggling project
+ * visibility, comparing the copy taken under a read lock that browsing used to make
+ * with reading ProjectManager's published snapshot. Readers check that snapshot
+ * versions never go backwards and that every snapshot is consistent in itself.
+ * Runs against the in-memory backend without seed data.
+ * Usage: java utils.CatalogReadBenchmark [threads] [projects] [seconds] [writesPerSecond]
+ */
+public class CatalogReadBenchmark {
+    private static final AtomicLong sink = new AtomicLong();
+    private static final ThreadLocal<long[]> lastVersion = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * The catalog as it was kept before snapshots, for comparison
+     */
+    private static final class LockedCatalog {
+        private final Map<String, BTOProject> projects = new LinkedHashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        List<BTOProject> getVisibleProjects() {
+            List<BTOProject> all;
+            lock.readLock().lock();
+            try {
+                all = new ArrayList<>(projects.values());
+            } finally {
+                lock.readLock().unlock();
+            }
+            List<BTOProject> visible = new ArrayList<>();
+            for (BTOProject project : all) {
+                if (project.isVisible()) {
+                    visible.add(project);
+                }
+            }
+            return visible;
+        }
+
+        void touch() {
+            lock.writeLock().lock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int projectCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int writesPerSecond = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        System.setProperty("btoms.storage", "memory");
+        System.setProperty("btoms.storage.seed", "false");
+        ProjectManager projectManager = ProjectManager.getInstance();
+        HDBManager manager = new HDBManager("S0000003M", "", 45, MaritalStatus.MARRIED, "Benchmark Manager");
+        Map<FlatType, Integer> units = Map.of(FlatType.TWO_ROOM, 30, FlatType.THREE_ROOM, 60);
+        LockedCatalog locked = new LockedCatalog();
+        List<BTOProject> projects = new ArrayList<>();
+        for (int i = 0; i < projectCount; i++) {
+            BTOProject project = new BTOProject("Catalog Project " + i, "Neighborhood " + (i % 50), units,
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), manager, 5);
+            project.setVisible(i % 2 == 0);
+            projectManager.addProject(project);
+            locked.projects.put(project.getProjectName(), project);
+            projects.add(project);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount + 1);
+        try {
+            List<String> failures = new CopyOnWriteArrayList<>();
+            Runnable lockedRead = () -> sink.addAndGet(locked.getVisibleProjects().size());
+            Runnable lockedWrite = () -> {
+                BTOProject project = projects.get(ThreadLocalRandom.current().nextInt(projects.size()));
+                locked.touch();
+                project.setVisible(!project.isVisible());
+            };
+            Runnable snapshotWrite = () ->
+                projectManager.toggleVisibility(projects.get(ThreadLocalRandom.current().nextInt(projects.size())));
+            // The first round only warms up the JIT compiler
+            run(pool, threadCount, Math.max(1, seconds / 2), writesPerSecond, lockedRead, lockedWrite);
+            run(pool, threadCount, Math.max(1, seconds / 2), writesPerSecond, () -> readSnapshot(projectManager, failures), snapshotWrite);
+
+            long[] lockedCounts = run(pool, threadCount, seconds, writesPerSecond, lockedRead, lockedWrite);
+            long[] snapshotCounts = run(pool, threadCount, seconds, writesPerSecond,
+                () -> readSnapshot(projectManager, failures), snapshotWrite);
+            report("locked copy", lockedCounts, seconds);
+            report("snapshot", snapshotCounts, seconds);
+            System.out.printf("%d projects, %d reader threads, catalog now at version %d%n",
+                projectCount, threadCount, projectManager.getCatalog().version());
+
+            if (!failures.isEmpty()) {
+                failures.stream().limit(20).forEach(failure -> System.out.println("FAILED: " + failure));
+                System.exit(1);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Reads one snapshot and checks it against itself
+     */
+    private static void readSnapshot(ProjectManager projectManager, List<String> failures) {
+        ProjectManager.CatalogSnapshot catalog = projectManager.getCatalog();
+        long[] last = lastVersion.get();
+        if (catalog.version() < last[0]) {
+            failures.add("Version went back from " + last[0] + " to " + catalog.version());
+        }
+        last[0] = catalog.version();
+        if (catalog.byName().size() != catalog.projects().size()) {
+            failures.add("Snapshot " + catalog.version() + " lists " + catalog.projects().size()
+                + " projects but indexes " + catalog.byName().size());
+        }
+        for (BTOProject project : catalog.visibleProjects()) {
+            if (catalog.byName().get(project.getProjectName()) != project) {
+                failures.add("Snapshot " + catalog.version() + " shows " + project.getProjectName() + " outside its catalog");
+            }
+        }
+        sink.addAndGet(projectManager.getVisibleProjects().size());
+    }
+
+    /**
+     * Reads from every thread while the last one writes at the given rate, until the time is up
+     * @return Reads and writes done
+     */
+    private static long[] run(ExecutorService pool, int threadCount, int seconds, int writesPerSecond,
+                              Runnable read, Runnable write) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong reads = new AtomicLong();
+        AtomicInteger writes = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            workers.add(pool.submit(() -> {
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    read.run();
+                    done++;
+                }
+                reads.addAndGet(done);
+                return null;
+            }));
+        }
+        workers.add(pool.submit(() -> {
+            long interval = 1_000_000_000L / Math.max(1, writesPerSecond);
+            for (long next = System.nanoTime(); next < deadline; next += interval) {
+                write.run();
+                writes.incrementAndGet();
+                long wait = next + interval - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            return null;
+        }));
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        return new long[] {reads.get(), writes.get()};
+    }
+
+    private static void report(String label, long[] counts, int seconds) {
+        System.out.printf("%-12s %,14.0f reads/s (%,d visibility changes)%n", label, (double) counts[0] / seconds, counts[1]);
+    }
+}
@@ -0,0 +1,240 @@
+package utils;
+
+import control.ApplicationManager;
+import control.EnquiryManager;
+import control.ProjectManager;
+import entity.*;
+import enums.*;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Hammers the shared managers from many threads at once and then checks that nothing was
+ * lost or counted twice: every applicant holds at most one application, the project
+ * indexes and unit counters agree with the applications (also when recounted mid-run),
+ * no flat type is booked beyond its units, and every enquiry was answered by exactly one of the officers racing to reply.
+ * Runs against the in-memory backend, so the files in database/ are never touched.
+ * Usage: java utils.ConcurrencyStressTest [threads] [operationsPerThread] [projects] [applicants]
+ */
+public class ConcurrencyStressTest {
+    private static final int ENQUIRIES_PER_PROJECT = 50;
+
+    public static void main(String[] args) throws Exception {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int projectCount = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int applicantCount = args.length > 3 ? Integer.parseInt(args[3]) : 5_000;
+
+        System.setProperty("btoms.storage", "memory");
+        System.setProperty("btoms.storage.seed", "false");
+        ProjectManager projectManager = ProjectManager.getInstance();
+        ApplicationManager applicationManager = ApplicationManager.getInstance();
+        EnquiryManager enquiryManager = EnquiryManager.getInstance();
+
+        HDBManager manager = new HDBManager("S0000001M", "", 45, MaritalStatus.MARRIED, "Stress Manager");
+        HDBOfficer officer = new HDBOfficer("T0000001O", "", 30, MaritalStatus.MARRIED, "Stress Officer");
+        // Fewer units than applications for each flat type, so bookings race for the last ones
+        int unitsPerType = Math.max(1, applicantCount / (projectCount * FlatType.values().length * 2));
+        Map<FlatType, Integer> units = new EnumMap<>(FlatType.class);
+        for (FlatType type : FlatType.values()) {
+            units.put(type, unitsPerType);
+        }
+        List<BTOProject> projects = new ArrayList<>();
+        for (int i = 0; i < projectCount; i++) {
+            BTOProject project = new BTOProject("Stress Project " + i, "Neighborhood " + i, units,
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), manager, 5);
+            project.setVisible(true);
+            projectManager.addProject(project);
+            projects.add(project);
+        }
+        List<Applicant> applicants = new ArrayList<>();
+        for (int i = 0; i < applicantCount; i++) {
+            applicants.add(new Applicant(String.format("S%07dA", i), "", 30, MaritalStatus.MARRIED, "Applicant " + i));
+        }
+        List<Enquiry> enquiries = new ArrayList<>();
+        for (BTOProject project : projects) {
+            for (int i = 0; i < ENQUIRIES_PER_PROJECT; i++) {
+                enquiries.add(enquiryManager.createEnquiry(applicants.get(i % applicantCount), project,
+                    "When is the balloting for " + project.getProjectName() + "?"));
+            }
+        }
+
+        AtomicInteger created = new AtomicInteger();
+        // The status check before approving is not atomic with the approval, so a booked application
+        // can be approved again and rebooked; bookings are therefore counted per application
+        Set<BTOApplication> booked = ConcurrentHashMap.newKeySet();
+        AtomicIntegerArray replies = new AtomicIntegerArray(enquiries.size());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            long seed = t;
+            workers.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < operations; i++) {
+                    Applicant applicant = applicants.get(random.nextInt(applicantCount));
+                    FlatType type = FlatType.values()[random.nextInt(FlatType.values().length)];
+                    BTOApplication application = applicationManager.getApplicationForApplicant(applicant.getNric());
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            BTOProject project = projects.get(random.nextInt(projectCount));
+                            if (applicationManager.createApplication(applicant, project, type)) {
+                                created.incrementAndGet();
+                            }
+                            break;
+                        case 1:
+                            if (application != null && application.getStatus() == ApplicationStatus.PENDING) {
+                                applicationManager.updateApplicationStatus(application, ApplicationStatus.SUCCESSFUL);
+                            }
+                            break;
+                        case 2:
+                            if (application != null &&
+                                applicationManager.bookFlatWithType(application, application.getSelectedFlatType())) {
+                                booked.add(application);
+                            }
+                            break;
+                        default:
+                            int index = random.nextInt(enquiries.size());
+                            if (enquiryManager.addReply(enquiries.get(index).getId(), "Reply from thread " + seed, officer)) {
+                                replies.incrementAndGet(index);
+                            }
+                            break;
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Recounts run alongside the bookings and must always find the counters in step
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger recountsOutOfStep = new AtomicInteger();
+        Thread recounter = new Thread(() -> {
+            while (running.get()) {
+                recountsOutOfStep.addAndGet(projectManager.verifyInventory());
+            }
+        }, "recount");
+
+        // Booking prints its details; keep them out of the report
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long startTime = System.nanoTime();
+        start.countDown();
+        recounter.start();
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            running.set(false);
+            recounter.join();
+        } finally {
+            System.setOut(out);
+            pool.shutdown();
+        }
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        List<String> failures = new ArrayList<>();
+        int applicationsHeld = 0;
+        for (Applicant applicant : applicants) {
+            BTOApplication current = applicant.getCurrentApplication();
+            if (current != applicationManager.getApplicationForApplicant(applicant.getNric())) {
+                failures.add(applicant.getNric() + " has a current application the manager does not know");
+            }
+            int projectsHolding = 0;
+            for (BTOProject project : projects) {
+                if (project.hasApplicant(applicant.getNric())) {
+                    projectsHolding++;
+                }
+            }
+            if (projectsHolding != (current != null ? 1 : 0)) {
+                failures.add(applicant.getNric() + " appears in " + projectsHolding + " projects");
+            }
+            if (current != null) {
+                applicationsHeld++;
+            }
+        }
+        if (applicationsHeld != created.get()) {
+            failures.add(created.get() + " applications created but " + applicationsHeld + " applicants hold one");
+        }
+
+        int bookedFound = 0;
+        for (BTOProject project : projects) {
+            String name = project.getProjectName();
+            Set<BTOApplication> indexed = new HashSet<>(applicationManager.getApplicationsForProject(name));
+            if (!indexed.equals(new HashSet<>(project.getApplications()))) {
+                failures.add(name + ": project index disagrees with the project's applications");
+            }
+            int[] bookedByType = new int[FlatType.values().length];
+            for (ApplicationStatus status : ApplicationStatus.values()) {
+                for (BTOApplication application : applicationManager.getApplicationsForProject(name, status)) {
+                    if (application.getStatus() != status) {
+                        failures.add(name + ": " + application.getApplicant().getNric() + " indexed as " + status);
+                    }
+                    if (status == ApplicationStatus.BOOKED) {
+                        bookedByType[application.getAssignedFlatType().ordinal()]++;
+                        bookedFound++;
+                    }
+                }
+            }
+            for (FlatType type : FlatType.values()) {
+                if (bookedByType[type.ordinal()] > project.totalUnits(type)) {
+                    failures.add(name + ": " + bookedByType[type.ordinal()] + " " + type + " units booked out of "
+                        + project.totalUnits(type));
+                }
+                if (project.getUnbookedUnits(type) != project.totalUnits(type) - bookedByType[type.ordinal()]) {
+                    failures.add(name + ": " + project.getUnbookedUnits(type) + " " + type + " units left unbooked but "
+                        + bookedByType[type.ordinal()] + " booked out of " + project.totalUnits(type));
+                }
+            }
+            if (enquiryManager.getEnquiriesForProject(name).size() != ENQUIRIES_PER_PROJECT) {
+                failures.add(name + ": enquiries were lost");
+            }
+        }
+        if (bookedFound != booked.size()) {
+            failures.add(booked.size() + " applications were booked but " + bookedFound + " are indexed as booked");
+        }
+        if (recountsOutOfStep.get() > 0) {
+            failures.add(recountsOutOfStep.get() + " recounts during the run found unit counters out of step");
+        }
+        int rebuilt = projectManager.verifyInventory();
+        if (rebuilt > 0) {
+            failures.add(rebuilt + " projects had unit counters out of step with their applications");
+        }
+
+        int replied = 0;
+        for (int i = 0; i < enquiries.size(); i++) {
+            Enquiry enquiry = enquiries.get(i);
+            if (replies.get(i) > 1) {
+                failures.add("Enquiry " + enquiry.getId() + " was answered " + replies.get(i) + " times");
+            }
+            if (enquiry.hasReply() != (replies.get(i) == 1)) {
+                failures.add("Enquiry " + enquiry.getId() + " has a reply nobody was told about");
+            }
+            if (enquiry.hasReply() && enquiryManager.getUnrepliedEnquiriesForProject(
+                    enquiry.getProject().getProjectName()).contains(enquiry)) {
+                failures.add("Enquiry " + enquiry.getId() + " is answered but still listed as unreplied");
+            }
+            replied += replies.get(i);
+        }
+
+        long totalOperations = (long) threadCount * operations;
+        System.out.printf("%d threads, %d operations in %d ms (%.0f ops/s)%n", threadCount, totalOperations,
+            elapsedMillis, totalOperations * 1000.0 / Math.max(1, elapsedMillis));
+        System.out.printf("%d applications, %d bookings, %d of %d enquiries answered%n",
+            created.get(), booked.size(), replied, enquiries.size());
+        if (failures.isEmpty()) {
+            System.out.println("All invariants hold");
+        } else {
+            failures.stream().limit(20).forEach(failure -> System.out.println("FAILED: " + failure));
+            System.out.println(failures.size() + " invariant violations");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
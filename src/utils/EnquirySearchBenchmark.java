@@ -0,0 +1,67 @@
+package utils;
+
+import util.TextSearchIndex;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the enquiry search index on synthetic enquiries: the time to index them,
+ * and the time per ranked query of one to three words once they are indexed.
+ * Question and reply words are drawn from a skewed vocabulary so that some words are
+ * common and most are rare, as in real enquiries.
+ * Usage: java utils.EnquirySearchBenchmark [enquiries] [queries]
+ */
+public class EnquirySearchBenchmark {
+    private static final String[] COMMON_WORDS = {
+        "flat", "unit", "room", "block", "apply", "application", "booking", "price", "date", "mrt",
+        "school", "park", "playground", "lift", "floor", "window", "kitchen", "toilet", "balcony", "grant"
+    };
+
+    public static void main(String[] args) {
+        int enquiryCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        Random random = new Random(42);
+        String[] vocabulary = new String[20_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = i < COMMON_WORDS.length ? COMMON_WORDS[i] : "word" + i;
+        }
+
+        TextSearchIndex<Integer> index = new TextSearchIndex<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < enquiryCount; i++) {
+            index.put(i, sentence(random, vocabulary, 12), i % 2 == 0 ? sentence(random, vocabulary, 8) : null);
+        }
+        double indexMillis = (System.nanoTime() - start) / 1e6;
+
+        String[] queries = new String[queryCount];
+        for (int i = 0; i < queryCount; i++) {
+            queries[i] = sentence(random, vocabulary, 1 + random.nextInt(3));
+        }
+        long hits = 0;
+        for (int i = 0; i < Math.min(queryCount, 100); i++) {
+            hits += index.search(queries[i], 10).size(); // Warm up
+        }
+        start = System.nanoTime();
+        for (String query : queries) {
+            List<Integer> results = index.search(query, 10);
+            hits += results.size();
+        }
+        double queryMillis = (System.nanoTime() - start) / 1e6 / queryCount;
+
+        System.out.printf("%d enquiries indexed in %.0f ms%n", enquiryCount, indexMillis);
+        System.out.printf("%.3f ms per query (top 10, %d hits in total)%n", queryMillis, hits);
+    }
+
+    /**
+     * Builds a sentence whose words follow a roughly Zipfian distribution
+     */
+    private static String sentence(Random random, String[] vocabulary, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int rank = (int) Math.min(vocabulary.length - 1, Math.exp(random.nextDouble() * Math.log(vocabulary.length)) - 1);
+            if (i > 0) sentence.append(' ');
+            sentence.append(vocabulary[rank]);
+        }
+        return sentence.toString();
+    }
+}
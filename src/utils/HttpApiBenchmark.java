@@ -0,0 +1,134 @@
+package utils;
+
+import boundary.HttpApiServer;
+import control.ProjectManager;
+import entity.BTOProject;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures requests per second against an in-process HttpApiServer over kept-alive
+ * connections. Each client thread cycles through the project listing (once fetched in
+ * full, then revalidated with If-None-Match), a project's details and the caller's own
+ * enquiries, and every response is checked for the expected status.
+ * Runs against the in-memory backend seeded from the text files, so the database files
+ * are only read.
+ * Usage: java utils.HttpApiBenchmark [clients] [seconds] [nric] [password]
+ */
+public class HttpApiBenchmark {
+    private static final String[] KINDS = {"listing", "listing (304)", "project", "enquiries"};
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String nric = args.length > 2 ? args[2] : "S7890123G";
+        String password = args.length > 3 ? args[3] : "password";
+
+        System.setProperty("btoms.storage", "memory");
+        List<BTOProject> projects = ProjectManager.getInstance().getAllProjects();
+        if (projects.isEmpty()) {
+            System.out.println("No projects found in database/projects");
+            System.exit(1);
+        }
+        HttpApiServer server = new HttpApiServer(0);
+        server.start();
+
+        String base = "http://localhost:" + server.getPort() + "/api/";
+        String authorization = "Basic " + Base64.getEncoder().encodeToString(
+            (nric + ":" + password).getBytes(StandardCharsets.UTF_8));
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newFixedThreadPool(4))
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        List<String> failures = new CopyOnWriteArrayList<>();
+        // The first round only warms up the JIT compiler on both sides
+        load(client, base, authorization, projects, clientCount, Math.max(2, seconds / 2), failures);
+        long startTime = System.nanoTime();
+        AtomicLongArray counts = load(client, base, authorization, projects, clientCount, seconds, failures);
+        long elapsedNanos = System.nanoTime() - startTime;
+        server.stop();
+
+        long total = 0;
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            System.out.printf("%-14s %,10d requests%n", KINDS[kind], counts.get(kind));
+            total += counts.get(kind);
+        }
+        System.out.printf("%,d requests from %d clients in %.1f s (%,.0f requests/s)%n",
+            total, clientCount, elapsedNanos / 1e9, total * 1e9 / elapsedNanos);
+        if (!failures.isEmpty()) {
+            failures.stream().limit(20).forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Sends requests from every client thread until the time is up
+     * @return Number of requests answered as expected, by kind
+     */
+    private static AtomicLongArray load(HttpClient client, String base, String authorization, List<BTOProject> projects,
+                                        int clientCount, int seconds, List<String> failures) throws Exception {
+        AtomicLongArray counts = new AtomicLongArray(KINDS.length);
+        ExecutorService clients = Executors.newFixedThreadPool(clientCount);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<?>> workers = new ArrayList<>();
+        for (int c = 0; c < clientCount; c++) {
+            int offset = c;
+            workers.add(clients.submit(() -> {
+                String etag = null;
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    int kind = i % KINDS.length;
+                    HttpRequest.Builder request = HttpRequest.newBuilder().header("Authorization", authorization);
+                    int expected = 200;
+                    switch (kind) {
+                        case 0:
+                            request.uri(URI.create(base + "projects?all=true"));
+                            break;
+                        case 1:
+                            request.uri(URI.create(base + "projects?all=true"));
+                            if (etag != null) {
+                                request.header("If-None-Match", etag);
+                                expected = 304;
+                            }
+                            break;
+                        case 2:
+                            String name = projects.get(i % projects.size()).getProjectName();
+                            request.uri(URI.create(base + "projects/" + URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20")));
+                            break;
+                        default:
+                            request.uri(URI.create(base + "enquiries/me"));
+                            break;
+                    }
+                    HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != expected) {
+                        failures.add(KINDS[kind] + ": expected " + expected + " but got " + response.statusCode() + " " + response.body());
+                        return null;
+                    }
+                    if (kind == 0) {
+                        etag = response.headers().firstValue("ETag").orElse(null);
+                    }
+                    counts.incrementAndGet(kind);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,76 @@
+package utils;
+
+import entity.BTOProject;
+import enums.FlatType;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Compares resolving project names while linking applications, as done at startup,
+ * between the old linear scan over the project list and the name-keyed index.
+ * The linear scan is timed over a sample of the lookups and scaled up, since
+ * scanning for every application takes minutes at these sizes.
+ * Usage: java utils.ProjectLookupBenchmark [projects] [applications] [scanSample]
+ */
+public class ProjectLookupBenchmark {
+    private static long sink;
+
+    public static void main(String[] args) {
+        int projectCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int applicationCount = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int scanSample = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+
+        List<BTOProject> list = new ArrayList<>(projectCount);
+        Map<String, BTOProject> index = new LinkedHashMap<>();
+        Map<FlatType, Integer> units = Map.of(FlatType.TWO_ROOM, 30, FlatType.THREE_ROOM, 60);
+        for (int i = 0; i < projectCount; i++) {
+            BTOProject project = new BTOProject("Project " + i, "Neighborhood " + (i % 50), units,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), null, 5);
+            list.add(project);
+            index.put(project.getProjectName(), project);
+        }
+
+        // Each parsed application line carries its own copy of the project name
+        Random random = new Random(42);
+        String[] names = new String[applicationCount];
+        for (int i = 0; i < applicationCount; i++) {
+            names[i] = new String("Project " + random.nextInt(projectCount));
+        }
+
+        // Warm up both paths so the JIT has compiled them before measuring
+        for (int i = 0; i < Math.min(scanSample, 10_000); i++) {
+            sink += scan(list, names[i]).getMaxOfficerSlots();
+            sink += index.get(names[i]).getMaxOfficerSlots();
+        }
+
+        int sampled = Math.min(scanSample, applicationCount);
+        long start = System.nanoTime();
+        for (int i = 0; i < sampled; i++) {
+            sink += scan(list, names[i]).getMaxOfficerSlots();
+        }
+        double scanMillis = (System.nanoTime() - start) / 1e6 * applicationCount / sampled;
+
+        start = System.nanoTime();
+        for (int i = 0; i < applicationCount; i++) {
+            sink += index.get(names[i]).getMaxOfficerSlots();
+        }
+        double indexMillis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%d projects, %d application lookups%n", projectCount, applicationCount);
+        System.out.printf("%-12s %12.1f ms%s%n", "linear scan", scanMillis,
+            sampled < applicationCount ? " (scaled from " + sampled + " lookups)" : "");
+        System.out.printf("%-12s %12.1f ms%n", "name index", indexMillis);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static BTOProject scan(List<BTOProject> projects, String projectName) {
+        for (BTOProject project : projects) {
+            if (project.getProjectName().equals(projectName)) {
+                return project;
+            }
+        }
+        return null;
+    }
+}
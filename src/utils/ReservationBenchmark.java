@@ -0,0 +1,192 @@
+package utils;
+
+import control.ApplicationManager;
+import control.ProjectManager;
+import entity.*;
+import enums.*;
+import util.UnitReservations;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures flat reservations under contention, checking each time that exactly the
+ * available units were handed out. First, threads race to sell out a single flat type,
+ * comparing the compare-and-set pool with a counter guarded by a lock. Then whole
+ * bookings go through ApplicationManager.bookFlatWithType from all threads at once,
+ * with fewer units than successful applications, against the in-memory backend.
+ * Usage: java utils.ReservationBenchmark [threads] [units] [rounds] [projects]
+ */
+public class ReservationBenchmark {
+
+    /**
+     * The reservation check-then-act done under a lock, for comparison
+     */
+    private static final class LockedCounter {
+        private int free;
+
+        synchronized boolean tryReserve() {
+            if (free <= 0) {
+                return false;
+            }
+            free--;
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int units = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int projectCount = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            UnitReservations reservations = new UnitReservations(new int[] {units});
+            LockedCounter counter = new LockedCounter();
+            for (int warmup = 0; warmup < 2; warmup++) {
+                sellOut(pool, threadCount, units, rounds, reservations::tryReserve, () -> reservations.setReserved(0, 0));
+                sellOut(pool, threadCount, units, rounds, slot -> counter.tryReserve(), () -> counter.free = units);
+            }
+            report("compare-and-set", units, rounds,
+                sellOut(pool, threadCount, units, rounds, reservations::tryReserve, () -> reservations.setReserved(0, 0)));
+            report("locked counter", units, rounds,
+                sellOut(pool, threadCount, units, rounds, slot -> counter.tryReserve(), () -> counter.free = units));
+
+            bookThroughManager(pool, threadCount, projectCount);
+        } finally {
+            pool.shutdown();
+        }
+        System.exit(0);
+    }
+
+    private interface Reserver {
+        boolean tryReserve(int slot);
+    }
+
+    /**
+     * Lets every thread reserve until the units run out, once per round
+     * @return Total elapsed nanoseconds
+     */
+    private static long sellOut(ExecutorService pool, int threadCount, int units, int rounds,
+                                Reserver reserver, Runnable reset) throws Exception {
+        long elapsed = 0;
+        for (int round = 0; round < rounds; round++) {
+            reset.run();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    int reserved = 0;
+                    while (reserver.tryReserve(0)) {
+                        reserved++;
+                    }
+                    return reserved;
+                }));
+            }
+            long roundStart = System.nanoTime();
+            start.countDown();
+            int reserved = 0;
+            for (Future<Integer> worker : workers) {
+                reserved += worker.get();
+            }
+            elapsed += System.nanoTime() - roundStart;
+            if (reserved != units) {
+                throw new IllegalStateException(reserved + " units reserved out of " + units);
+            }
+        }
+        return elapsed;
+    }
+
+    private static void report(String label, int units, int rounds, long elapsedNanos) {
+        System.out.printf("%-16s %,12.0f reservations/s (%d rounds selling out %d units, none oversold)%n",
+            label, (double) units * rounds * 1_000_000_000L / elapsedNanos, rounds, units);
+    }
+
+    /**
+     * Books every successful application from all threads at once, with only half as
+     * many units as applications, and checks that each unit went to exactly one of them
+     */
+    private static void bookThroughManager(ExecutorService pool, int threadCount, int projectCount) throws Exception {
+        System.setProperty("btoms.storage", "memory");
+        System.setProperty("btoms.storage.seed", "false");
+        ProjectManager projectManager = ProjectManager.getInstance();
+        ApplicationManager applicationManager = ApplicationManager.getInstance();
+
+        int applicationsPerProject = 20_000;
+        int unitsPerType = applicationsPerProject / 4; // Half the applications per flat type get a unit
+        HDBManager manager = new HDBManager("S0000002M", "", 45, MaritalStatus.MARRIED, "Benchmark Manager");
+        Map<FlatType, Integer> flatUnits = new EnumMap<>(FlatType.class);
+        for (FlatType type : FlatType.values()) {
+            flatUnits.put(type, unitsPerType);
+        }
+        List<BTOApplication> applications = new ArrayList<>();
+        List<BTOProject> projects = new ArrayList<>();
+        for (int p = 0; p < projectCount; p++) {
+            BTOProject project = new BTOProject("Benchmark Project " + p, "Neighborhood " + p, flatUnits,
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), manager, 5);
+            projectManager.addProject(project);
+            projects.add(project);
+            for (int i = 0; i < applicationsPerProject; i++) {
+                Applicant applicant = new Applicant(String.format("S%03d%04dB", p, i), "", 30,
+                    MaritalStatus.MARRIED, "Applicant " + i);
+                FlatType type = FlatType.values()[i % FlatType.values().length];
+                applicationManager.createApplication(applicant, project, type);
+                BTOApplication application = applicant.getCurrentApplication();
+                applicationManager.updateApplicationStatus(application, ApplicationStatus.SUCCESSFUL);
+                applications.add(application);
+            }
+        }
+        Collections.shuffle(applications, new Random(42));
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = next.getAndIncrement(); i < applications.size(); i = next.getAndIncrement()) {
+                    BTOApplication application = applications.get(i);
+                    if (applicationManager.bookFlatWithType(application, application.getSelectedFlatType())) {
+                        booked.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Booking prints its details; keep them out of the report
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long startTime = System.nanoTime();
+        start.countDown();
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            System.setOut(out);
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        int expected = projectCount * unitsPerType * FlatType.values().length;
+        for (BTOProject project : projects) {
+            for (FlatType type : FlatType.values()) {
+                if (project.getUnbookedUnits(type) != 0) {
+                    throw new IllegalStateException(project.getProjectName() + " has unbooked " + type + " units left");
+                }
+            }
+        }
+        if (booked.get() != expected) {
+            throw new IllegalStateException(booked.get() + " bookings succeeded for " + expected + " units");
+        }
+        System.out.printf("bookFlatWithType %,12.0f attempts/s, %,.0f bookings/s (%d of %d applications booked, %d threads)%n",
+            applications.size() * 1_000_000_000.0 / elapsedNanos, booked.get() * 1_000_000_000.0 / elapsedNanos,
+            booked.get(), applications.size(), threadCount);
+    }
+}
@@ -0,0 +1,156 @@
+package utils;
+
+import boundary.SessionServer;
+import control.UserManager;
+import entity.User;
+import enums.UserType;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens many client sessions against an in-process SessionServer at once. Every client
+ * signs in as one of the users in database/users.txt, waits until all clients are signed
+ * in together, then checks that its own menu greets its own user before logging out and
+ * exiting. Runs against the in-memory backend seeded from the text files, so the
+ * database files are only read.
+ * Usage: java utils.SessionLoadTest [sessions] [password]
+ */
+public class SessionLoadTest {
+    private static final long TIMEOUT_SECONDS = 120;
+
+    public static void main(String[] args) throws Exception {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String password = args.length > 1 ? args[1] : "password";
+
+        System.setProperty("btoms.storage", "memory");
+        UserManager userManager = UserManager.getInstance();
+        List<User> users = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get("database/users.txt"))) {
+            User user = line.isBlank() || line.startsWith("#") ? null : userManager.getUser(line.split(",")[0]);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        if (users.isEmpty()) {
+            System.out.println("No users found in database/users.txt");
+            System.exit(1);
+        }
+
+        SessionServer server = new SessionServer(0, sessionCount);
+        Thread acceptor = new Thread(server::serve, "btoms-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        // The last client to sign in counts the running sessions before anyone logs out
+        long startTime = System.nanoTime();
+        AtomicLong loginMillis = new AtomicLong();
+        AtomicInteger concurrent = new AtomicInteger();
+        CyclicBarrier signedIn = new CyclicBarrier(sessionCount, () -> {
+            loginMillis.set((System.nanoTime() - startTime) / 1_000_000);
+            concurrent.set(server.getActiveSessions());
+        });
+        ExecutorService clients = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(null, task, "client", 256 * 1024);
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            User user = users.get(i % users.size());
+            results.add(clients.submit(() -> {
+                runClient(server.getPort(), user, password, signedIn);
+                return null;
+            }));
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (Future<?> result : results) {
+            try {
+                result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                failures.add(String.valueOf(e.getCause() != null ? e.getCause().getMessage() : e));
+            }
+        }
+        long totalMillis = (System.nanoTime() - startTime) / 1_000_000;
+        server.close();
+
+        System.out.printf("%d sessions signed in together after %d ms, all done after %d ms%n",
+            concurrent.get(), loginMillis.get(), totalMillis);
+        if (concurrent.get() != sessionCount) {
+            failures.add("Only " + concurrent.get() + " of " + sessionCount + " sessions were running at once");
+        }
+        if (failures.isEmpty()) {
+            System.out.println("Every session saw only its own user");
+        } else {
+            failures.stream().limit(20).forEach(failure -> System.out.println("FAILED: " + failure));
+            System.out.println(failures.size() + " sessions failed");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Signs in, checks the greeting, waits for every other client, then logs out and exits
+     */
+    private static void runClient(int port, User user, String password, CyclicBarrier signedIn) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Reader in = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+            readUntil(in, "Choose an option: ");
+            send(out, "1");
+            readUntil(in, "Enter NRIC: ");
+            send(out, user.getNric());
+            readUntil(in, "Enter password: ");
+            send(out, password);
+            String menu = readUntil(in, "Choose an option: ");
+            if (!menu.contains("Welcome, " + user.getName() + "!")) {
+                signedIn.reset();
+                throw new IllegalStateException(user.getNric() + " was not greeted by name: " + menu.trim());
+            }
+
+            signedIn.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            send(out, logoutOption(user.getUserType()));
+            readUntil(in, "Choose an option: ");
+            send(out, "2");
+            readUntil(in, "Thank you for using BTO Management System!");
+        }
+    }
+
+    private static String logoutOption(UserType type) {
+        switch (type) {
+            case HDB_MANAGER: return "9";
+            case HDB_OFFICER: return "3";
+            default: return "7";
+        }
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line + "\r\n");
+        out.flush();
+    }
+
+    /**
+     * Reads until the text ends with the given prompt
+     * @return Everything read
+     */
+    private static String readUntil(Reader in, String prompt) throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < prompt.length() || text.lastIndexOf(prompt) != text.length() - prompt.length()) {
+            int c = in.read();
+            if (c < 0) {
+                throw new EOFException("Session ended while waiting for \"" + prompt + "\" after: " + text);
+            }
+            text.append((char) c);
+        }
+        return text.toString();
+    }
+}
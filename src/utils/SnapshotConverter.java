@@ -0,0 +1,164 @@
+package utils;
+
+import util.BinarySnapshot;
+import util.ChecksummedFile;
+import util.MappedRecordReader;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Converts the database stores between the text format and the binary snapshot format.
+ * Usage: java utils.SnapshotConverter (to-binary | to-text) [users|projects|applications|enquiries ...]
+ */
+public class SnapshotConverter {
+    private static final String DATABASE_DIR = "database/";
+    private static final String PROJECTS_DIR = DATABASE_DIR + "projects";
+
+    public static void main(String[] args) {
+        if (args.length == 0 || (!args[0].equals("to-binary") && !args[0].equals("to-text"))) {
+            System.out.println("Usage: java utils.SnapshotConverter (to-binary | to-text) [users|projects|applications|enquiries ...]");
+            return;
+        }
+
+        List<String> stores = args.length > 1 ?
+            Arrays.asList(args).subList(1, args.length) :
+            Arrays.asList("users", "projects", "applications", "enquiries");
+
+        for (String store : stores) {
+            try {
+                if (args[0].equals("to-text")) {
+                    toText(store);
+                }
+                // Always (re)write the snapshot so it carries the fingerprint of the current text
+                toBinary(store);
+                System.out.println("Converted " + store);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Error converting " + store + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void toBinary(String store) throws IOException {
+        File snapshot = new File(DATABASE_DIR + store + ".bin");
+
+        if (store.equals("projects")) {
+            File[] slotFiles = listSlotFiles();
+            try (BinarySnapshot.Writer writer = new BinarySnapshot.Writer(snapshot,
+                    BinarySnapshot.fingerprint(slotFiles), '|', dictionaryColumns(store))) {
+                for (File slotFile : slotFiles) {
+                    String slot = slotFile.getName().substring(0, slotFile.getName().length() - ".txt".length());
+                    for (String[] fields : readRecords(slotFile, '|')) {
+                        String[] record = new String[fields.length + 1];
+                        record[0] = String.valueOf(Integer.parseInt(slot));
+                        System.arraycopy(fields, 0, record, 1, fields.length);
+                        writer.write(record);
+                    }
+                }
+                writer.commit();
+            }
+            return;
+        }
+
+        File text = new File(DATABASE_DIR + store + ".txt");
+        char delimiter = delimiter(store);
+        try (BinarySnapshot.Writer writer = new BinarySnapshot.Writer(snapshot,
+                 BinarySnapshot.fingerprint(text), delimiter, dictionaryColumns(store))) {
+            for (String[] record : readRecords(text, delimiter)) {
+                writer.write(record);
+            }
+            writer.commit();
+        }
+    }
+
+    private static void toText(String store) throws IOException {
+        File snapshot = new File(DATABASE_DIR + store + ".bin");
+        if (!snapshot.exists()) {
+            throw new FileNotFoundException(snapshot.getPath());
+        }
+        String delimiter = String.valueOf(BinarySnapshot.readDelimiter(snapshot));
+
+        if (store.equals("projects")) {
+            new File(PROJECTS_DIR).mkdirs();
+            for (File slotFile : listSlotFiles()) {
+                slotFile.delete();
+            }
+            BinarySnapshot.read(snapshot, null, record -> {
+                File slotFile = new File(PROJECTS_DIR, String.format("%08d.txt", Integer.parseInt(record[0])));
+                try (ChecksummedFile.Writer writer = new ChecksummedFile.Writer(slotFile)) {
+                    writer.println(String.join(delimiter, Arrays.copyOfRange(record, 1, record.length)));
+                    writer.commit();
+                } catch (IOException e) {
+                    System.err.println("Error writing " + slotFile.getName() + ": " + e.getMessage());
+                }
+            });
+            return;
+        }
+
+        try (ChecksummedFile.Writer writer = new ChecksummedFile.Writer(new File(DATABASE_DIR + store + ".txt"))) {
+            List<IOException> errors = new ArrayList<>();
+            BinarySnapshot.read(snapshot, null, record -> {
+                try {
+                    writer.println(String.join(delimiter, record));
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+            });
+            if (!errors.isEmpty()) {
+                throw errors.get(0);
+            }
+            writer.commit();
+        }
+    }
+
+    private static char delimiter(String store) {
+        return store.equals("users") ? ',' : '|';
+    }
+
+    /**
+     * Must match the dictionary columns used by FlatFileBackend
+     */
+    private static int[] dictionaryColumns(String store) {
+        switch (store) {
+            case "users":
+                return new int[] {3, 4};
+            case "projects":
+                return new int[] {2, 6};
+            case "applications":
+                return new int[] {1, 2, 3, 4, 5};
+            case "enquiries":
+                return new int[] {1, 2};
+            default:
+                throw new IllegalArgumentException("Unknown store: " + store);
+        }
+    }
+
+    private static File[] listSlotFiles() {
+        File[] slotFiles = new File(PROJECTS_DIR).listFiles((dir, name) -> name.endsWith(".txt"));
+        if (slotFiles == null) {
+            return new File[0];
+        }
+        Arrays.sort(slotFiles);
+        return slotFiles;
+    }
+
+    /**
+     * Reads every record of the newest intact generation of a text file
+     */
+    private static List<String[]> readRecords(File text, char delimiter) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        ChecksummedFile.Verified verified = ChecksummedFile.verify(text);
+        if (verified == null) {
+            throw new FileNotFoundException(text.getPath());
+        }
+        try (MappedRecordReader reader = new MappedRecordReader(verified.file(), delimiter, verified.length())) {
+            while (reader.nextRecord()) {
+                String[] record = new String[reader.getFieldCount()];
+                for (int i = 0; i < record.length; i++) {
+                    record[i] = reader.getString(i);
+                }
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,120 @@
+package utils;
+
+import enums.*;
+import util.RecordTokenizer;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares heap allocation per record between String.split and RecordTokenizer
+ * for one sample line of each store. Only tokenizing and decoding the numeric,
+ * boolean and enum columns is measured; text columns are not materialized.
+ * Usage: java utils.TokenizerBenchmark [records]
+ */
+public class TokenizerBenchmark {
+    private static final String USER_LINE =
+        "S3456789C,F1hNQ29KHio7E7TcffnkZFoNa6N9eRHgboTeEvbEi4cmXyyPF3wVxW3EtFT+TdGx,30,MARRIED,APPLICANT,John Tan";
+    private static final String PROJECT_LINE =
+        "Acacia Breeze|Jurong West|THREE_ROOM:60,TWO_ROOM:30|2025-04-24|2025-09-27|S8901234H|true|5|" +
+        "S1145144E:true,T2109876H:false|false|THREE_ROOM:59,TWO_ROOM:29";
+    private static final String APPLICATION_LINE = "S3456789C|Acacia Breeze|TWO_ROOM|BOOKED|false|TWO_ROOM";
+    private static final String ENQUIRY_LINE =
+        "ENQ-1|S3456789C|Acacia Breeze|Is there a playground nearby?|Yes, next to block 12.";
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        String[] names = {"users", "projects", "applications", "enquiries"};
+        String[] lines = {USER_LINE, PROJECT_LINE, APPLICATION_LINE, ENQUIRY_LINE};
+        char[] delimiters = {',', '|', '|', '|'};
+
+        System.out.printf("%-14s %16s %16s%n", "Store", "split B/record", "tokenizer B/record");
+        for (int store = 0; store < names.length; store++) {
+            RecordTokenizer fields = new RecordTokenizer(delimiters[store]);
+            // Warm up both paths so the JIT has compiled them before measuring
+            for (int i = 0; i < 100_000; i++) {
+                parseWithSplit(store, lines[store]);
+                parseWithTokenizer(store, fields.reset(lines[store]));
+            }
+
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < records; i++) {
+                parseWithSplit(store, lines[store]);
+            }
+            long splitBytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+            before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < records; i++) {
+                parseWithTokenizer(store, fields.reset(lines[store]));
+            }
+            long tokenizerBytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+            System.out.printf("%-14s %16.1f %16.1f%n", names[store],
+                (double) splitBytes / records, (double) tokenizerBytes / records);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void parseWithSplit(int store, String line) {
+        if (store == 0) {
+            String[] parts = line.split(",");
+            sink += Integer.parseInt(parts[2]) + MaritalStatus.valueOf(parts[3]).ordinal() +
+                UserType.valueOf(parts[4]).ordinal();
+        } else if (store == 1) {
+            String[] parts = line.split("\\|");
+            for (String unit : parts[2].split(",")) {
+                String[] unitParts = unit.split(":");
+                sink += FlatType.valueOf(unitParts[0]).ordinal() + Integer.parseInt(unitParts[1]);
+            }
+            for (String officer : parts[8].split(",")) {
+                sink += Boolean.parseBoolean(officer.split(":")[1]) ? 1 : 0;
+            }
+            for (String unit : parts[10].split(",")) {
+                String[] unitParts = unit.split(":");
+                sink += FlatType.valueOf(unitParts[0]).ordinal() + Integer.parseInt(unitParts[1]);
+            }
+            sink += Integer.parseInt(parts[7]) + (Boolean.parseBoolean(parts[6]) ? 1 : 0);
+        } else if (store == 2) {
+            String[] parts = line.split("\\|");
+            sink += FlatType.valueOf(parts[2]).ordinal() + ApplicationStatus.valueOf(parts[3]).ordinal() +
+                (Boolean.parseBoolean(parts[4]) ? 1 : 0) + FlatType.valueOf(parts[5]).ordinal();
+        } else {
+            String[] parts = line.split("\\|");
+            sink += parts.length;
+        }
+    }
+
+    private static void parseWithTokenizer(int store, RecordTokenizer fields) {
+        if (store == 0) {
+            sink += fields.getInt(2) + fields.getEnum(3, MaritalStatus.class).ordinal() +
+                fields.getEnum(4, UserType.class).ordinal();
+        } else if (store == 1) {
+            sink += sumUnits(fields, 2) + sumUnits(fields, 10);
+            RecordTokenizer officers = fields.subFields(8, ',');
+            for (int i = 0; i < officers.getFieldCount(); i++) {
+                sink += officers.subFields(i, ':').getBoolean(1) ? 1 : 0;
+            }
+            sink += fields.getInt(7) + (fields.getBoolean(6) ? 1 : 0);
+        } else if (store == 2) {
+            sink += fields.getEnum(2, FlatType.class).ordinal() + fields.getEnum(3, ApplicationStatus.class).ordinal() +
+                (fields.getBoolean(4) ? 1 : 0) + fields.getEnum(5, FlatType.class).ordinal();
+        } else {
+            sink += fields.getFieldCount();
+        }
+    }
+
+    private static int sumUnits(RecordTokenizer fields, int index) {
+        int sum = 0;
+        RecordTokenizer units = fields.subFields(index, ',');
+        for (int i = 0; i < units.getFieldCount(); i++) {
+            RecordTokenizer unitParts = units.subFields(i, ':');
+            sum += unitParts.getEnum(0, FlatType.class).ordinal() + unitParts.getInt(1);
+        }
+        return sum;
+    }
+}